@@ -0,0 +1,59 @@
+package bench;
+import graph.Graph;
+import java.util.Random;
+//общие части замеров: генераторы графов и таймер.
+//замеры запускаются вручную (java -cp out bench.<Имя>), время - по System.nanoTime после прогрева
+final class Bench {
+    private Bench() {}
+
+    //случайный граф: n вершин 0..n-1 и около n * degree рёбер с весами 1..maxWeight, повторы рёбер пропускаются
+    static Graph<Integer> randomGraph(int n, int degree, int maxWeight, boolean directed, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer> g = new Graph<>(directed, n);
+        for (int i = 0; i < n; i++) g.addVertex(i);
+        long edges = (long) n * degree;
+        for (long i = 0; i < edges; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a != b && !g.hasEdge(a, b)) g.addEdge(a, b, 1 + random.nextInt(maxWeight));
+        }
+        return g;
+    }
+
+    //решётка side x side, похожая на дорожную сеть: вершина y * side + x, рёбра к соседям в обе стороны,
+    //вес - 10..19, поэтому евклидово расстояние * 10 не превышает настоящее (годится для A*)
+    static Graph<Integer> grid(int side, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer> g = new Graph<>(true, side * side);
+        for (int i = 0; i < side * side; i++) g.addVertex(i);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int v = y * side + x;
+                if (x + 1 < side) {
+                    g.addEdge(v, v + 1, 10 + random.nextInt(10));
+                    g.addEdge(v + 1, v, 10 + random.nextInt(10));
+                }
+                if (y + 1 < side) {
+                    g.addEdge(v, v + side, 10 + random.nextInt(10));
+                    g.addEdge(v + side, v, 10 + random.nextInt(10));
+                }
+            }
+        }
+        return g;
+    }
+
+    //время одного запуска в миллисекундах
+    static double millis(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    //лучшее время из rounds запусков, первый запуск - прогрев
+    static double bestMillis(int rounds, Runnable task) {
+        task.run();
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) best = Math.min(best, millis(task));
+        return best;
+    }
+}
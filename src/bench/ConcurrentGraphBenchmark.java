@@ -0,0 +1,149 @@
+package bench;
+import exceptions.GraphError;
+import graph.ConcurrentGraph;
+import graph.Edge;
+import graph.Graph;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+//ConcurrentGraph против Graph за одной общей блокировкой (так запросы обслуживались до него).
+//1) поиск вершин в одном потоке: 1.6M строковых вершин, 4.8M вызовов containsVertex;
+//2) пропускная способность на смешанной нагрузке от 1 до 32 потоков на графе из MIX_VERTICES вершин: 5% addEdge/removeEdge,
+//   1% shortestPath, остальное hasEdge/getAdjacent; каждый замер длится SECONDS секунд.
+//на машине с одним ядром рост от числа потоков не виден, там сравнивается только цена блокировок
+public class ConcurrentGraphBenchmark {
+    private static final int LOOKUP_VERTICES = 1_600_000;
+    private static final int LOOKUPS = 4_800_000;
+    private static final int MIX_VERTICES = 5_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int SECONDS = 3;
+    private static volatile long blackhole; //результаты чтений, чтобы JIT их не выбросил
+
+    //общее у двух графов, чтобы гонять одну и ту же нагрузку
+    private interface Target {
+        void addEdge(int from, int to, int weight);
+        void removeEdge(int from, int to);
+        boolean hasEdge(int from, int to);
+        int adjacentCount(int v);
+        void shortestPath(int from, int to);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        lookups();
+        mix();
+    }
+
+    private static void lookups() {
+        String[] names = new String[LOOKUP_VERTICES];
+        for (int i = 0; i < names.length; i++) names[i] = "v" + i;
+        Random random = new Random(1);
+        int[] queries = new int[LOOKUPS];
+        for (int i = 0; i < queries.length; i++) queries[i] = random.nextInt(names.length);
+        int[] found = new int[1];
+        ConcurrentGraph<String> concurrent = new ConcurrentGraph<>(true);
+        for (String name : names) concurrent.addVertex(name);
+        double concurrentMillis = Bench.bestMillis(2, () -> {
+            for (int q : queries) if (concurrent.containsVertex(names[q])) found[0]++;
+        });
+        Graph<String> plain = new Graph<>(true, names.length);
+        for (String name : names) plain.addVertex(name);
+        double plainMillis = Bench.bestMillis(2, () -> {
+            for (int q : queries) if (plain.containsVertex(names[q])) found[0]++;
+        });
+        System.out.printf("поиск %d вершин среди %d: ConcurrentGraph %.0f мс, Graph %.0f мс%n",
+                LOOKUPS, LOOKUP_VERTICES, concurrentMillis, plainMillis);
+    }
+
+    private static void mix() throws InterruptedException {
+        ConcurrentGraph<Integer> concurrent = new ConcurrentGraph<>(true);
+        Graph<Integer> plain = Bench.randomGraph(MIX_VERTICES, 4, 100, true, 7);
+        for (Integer v : plain.vertices()) concurrent.addVertex(v);
+        for (Integer v : plain.vertices()) {
+            for (Edge<Integer> e : plain.edgesFrom(v)) concurrent.addEdge(v, e.getTo(), e.getWeight());
+        }
+        ReentrantLock lock = new ReentrantLock();
+        Target striped = new Target() {
+            public void addEdge(int from, int to, int weight) { concurrent.addEdge(from, to, weight); }
+            public void removeEdge(int from, int to) { concurrent.removeEdge(from, to); }
+            public boolean hasEdge(int from, int to) { return concurrent.hasEdge(from, to); }
+            public int adjacentCount(int v) { return concurrent.getAdjacent(v).size(); }
+            public void shortestPath(int from, int to) { concurrent.shortestPath(from, to); }
+        };
+        Target locked = new Target() {
+            public void addEdge(int from, int to, int weight) {
+                lock.lock();
+                try { plain.addEdge(from, to, weight); } finally { lock.unlock(); }
+            }
+            public void removeEdge(int from, int to) {
+                lock.lock();
+                try { plain.removeEdge(from, to); } finally { lock.unlock(); }
+            }
+            public boolean hasEdge(int from, int to) {
+                lock.lock();
+                try { return plain.hasEdge(from, to); } finally { lock.unlock(); }
+            }
+            public int adjacentCount(int v) {
+                lock.lock();
+                try { return plain.getAdjacent(v).size(); } finally { lock.unlock(); }
+            }
+            public void shortestPath(int from, int to) {
+                lock.lock();
+                try { plain.shortestPath(from, to); } finally { lock.unlock(); }
+            }
+        };
+        throughput(striped, 1); //прогрев
+        throughput(locked, 1);
+        System.out.println("потоков   ConcurrentGraph, оп/с   Graph + общая блокировка, оп/с");
+        for (int threads : THREADS) {
+            long a = throughput(striped, threads);
+            long b = throughput(locked, threads);
+            System.out.printf("%-9d %-23d %d%n", threads, a, b);
+        }
+    }
+
+    //операций в секунду за SECONDS секунд работы threads потоков
+    private static long throughput(Target target, int threads) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong total = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> total.addAndGet(work(target, seed, stop)));
+        }
+        for (Thread w : workers) w.start();
+        Thread.sleep(SECONDS * 1000L);
+        stop.set(true);
+        for (Thread w : workers) w.join();
+        return total.get() / SECONDS;
+    }
+
+    private static long work(Target target, long seed, AtomicBoolean stop) {
+        Random random = new Random(seed);
+        long operations = 0;
+        long seen = 0;
+        while (!stop.get()) {
+            int a = random.nextInt(MIX_VERTICES);
+            int b = random.nextInt(MIX_VERTICES);
+            int kind = random.nextInt(100);
+            try {
+                if (kind < 5) {
+                    //другой поток мог успеть добавить или убрать то же ребро, тогда GraphError
+                    if (target.hasEdge(a, b)) target.removeEdge(a, b);
+                    else if (a != b) target.addEdge(a, b, 1 + random.nextInt(100));
+                } else if (kind < 6) {
+                    target.shortestPath(a, b);
+                } else if (kind < 50) {
+                    if (target.hasEdge(a, b)) seen++;
+                } else {
+                    seen += target.adjacentCount(a);
+                }
+            } catch (GraphError e) {
+                seen--;
+            }
+            operations++;
+        }
+        blackhole = seen;
+        return operations;
+    }
+}
@@ -0,0 +1,230 @@
+package bench;
+import exceptions.GraphError;
+import graph.ConcurrentGraph;
+import graph.Edge;
+import structures.DynamicArray;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+//нагрузочная проверка ConcurrentGraph: писатели меняют граф, читатели одновременно обходят его.
+//у каждого писателя свои вершины, рёбра идут только из его вершин, поэтому свою часть графа он знает точно
+//и после остановки всех потоков граф сверяется с моделями писателей.
+//читатели проверяют то, что должно выполняться при любом чередовании: нет повторов в обходах и списках рёбер,
+//путь начинается и кончается где надо, исключения - только GraphError про удалённые вершины или отсутствие пути.
+//запуск: bench.ConcurrentGraphStress [писателей] [читателей] [операций на писателя], при ошибке код выхода 1
+public class ConcurrentGraphStress {
+    private static final int SHARED = 2_000; //общие вершины, их никто не удаляет
+    private static final int OWN = 200;      //своих вершин у каждого писателя
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        boolean ok = true;
+        for (boolean directed : new boolean[]{true, false}) {
+            ok &= run(directed, writers, readers, operations);
+        }
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean run(boolean directed, int writerCount, int readerCount, int operations)
+            throws InterruptedException {
+        ConcurrentGraph<String> g = new ConcurrentGraph<>(directed);
+        for (int i = 0; i < SHARED; i++) g.addVertex(shared(i));
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Writer[] writers = new Writer[writerCount];
+        Thread[] threads = new Thread[writerCount + readerCount];
+        for (int w = 0; w < writerCount; w++) {
+            writers[w] = new Writer(g, w, directed, operations, failures);
+            threads[w] = new Thread(writers[w]);
+        }
+        long[] reads = new long[readerCount];
+        for (int r = 0; r < readerCount; r++) {
+            int reader = r;
+            threads[writerCount + r] = new Thread(() -> reads[reader] = read(g, reader, writers, done, failures));
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (int w = 0; w < writerCount; w++) threads[w].join();
+        done.set(true);
+        for (Thread t : threads) t.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        verify(g, writers, directed, failures);
+        long totalReads = 0;
+        for (long r : reads) totalReads += r;
+        System.out.printf("%s: писателей %d по %d операций, читателей %d, обходов %d, %.1f с - %s%n",
+                directed ? "ориентированный" : "неориентированный", writerCount, operations, readerCount,
+                totalReads, seconds, failures.isEmpty() ? "ok" : "ОШИБКИ");
+        int shown = 0;
+        for (String f : failures) {
+            if (shown++ == 20) break;
+            System.out.println("  " + f);
+        }
+        return failures.isEmpty();
+    }
+
+    private static String shared(int i) {
+        return "s" + i;
+    }
+
+    //писатель: добавляет и удаляет свои вершины и рёбра из них, ведёт модель того, что должно быть в графе
+    private static final class Writer implements Runnable {
+        private final ConcurrentGraph<String> g;
+        private final int number;
+        private final boolean directed;
+        private final int operations;
+        private final ConcurrentLinkedQueue<String> failures;
+        //out[i][j] - вес ребра из i-й своей вершины в j-ю цель или -1; цели - сначала общие, потом свои вершины
+        final int[][] out = new int[OWN][SHARED + OWN];
+        final boolean[] alive = new boolean[OWN];
+
+        Writer(ConcurrentGraph<String> g, int number, boolean directed, int operations,
+               ConcurrentLinkedQueue<String> failures) {
+            this.g = g;
+            this.number = number;
+            this.directed = directed;
+            this.operations = operations;
+            this.failures = failures;
+            for (int[] row : out) Arrays.fill(row, -1);
+        }
+
+        String own(int i) {
+            return "w" + number + "-" + i;
+        }
+
+        //в неориентированном графе ребро своей вершины в свою неотличимо от обратного, поэтому цели - только общие
+        String target(int j) {
+            return j < SHARED ? shared(j) : own(j - SHARED);
+        }
+
+        @Override
+        public void run() {
+            Random random = new Random(number);
+            int targets = directed ? SHARED + OWN : SHARED;
+            try {
+                for (int op = 0; op < operations; op++) {
+                    int i = random.nextInt(OWN);
+                    int kind = random.nextInt(100);
+                    if (!alive[i]) {
+                        g.addVertex(own(i));
+                        alive[i] = true;
+                    } else if (kind < 2) {
+                        g.removeVertex(own(i));
+                        alive[i] = false;
+                        Arrays.fill(out[i], -1);
+                        for (int[] row : out) row[SHARED + i] = -1;
+                    } else {
+                        int j = random.nextInt(targets);
+                        if (j >= SHARED && !alive[j - SHARED]) continue;
+                        if (out[i][j] == -1) {
+                            int w = random.nextInt(100);
+                            g.addEdge(own(i), target(j), w);
+                            out[i][j] = w;
+                        } else {
+                            g.removeEdge(own(i), target(j));
+                            out[i][j] = -1;
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                failures.add("писатель " + number + ": " + e);
+            }
+        }
+    }
+
+    //читатель крутит обходы, пока писатели не закончат, возвращает число обходов
+    private static long read(ConcurrentGraph<String> g, int reader, Writer[] writers, AtomicBoolean done,
+                             ConcurrentLinkedQueue<String> failures) {
+        Random random = new Random(1000 + reader);
+        long count = 0;
+        while (!done.get()) {
+            //обход начинается и с общих вершин, и со своих вершин писателей, которые могут как раз удаляться
+            String a = random.nextBoolean()
+                    ? shared(random.nextInt(SHARED))
+                    : writers[random.nextInt(writers.length)].own(random.nextInt(OWN));
+            String b = shared(random.nextInt(SHARED));
+            try {
+                int kind = random.nextInt(5);
+                if (kind == 0) {
+                    noRepeats("bfsOrder", g.bfsOrder(a), failures);
+                } else if (kind == 1) {
+                    noRepeats("dfsOrder", g.dfsOrder(a), failures);
+                } else if (kind == 2) {
+                    DynamicArray<String> path = g.shortestPath(a, b);
+                    if (!path.get(0).equals(a) || !path.get(path.size() - 1).equals(b)) {
+                        failures.add("shortestPath " + a + " -> " + b + ": концы пути " + path.get(0)
+                                + ", " + path.get(path.size() - 1));
+                    }
+                    noRepeats("shortestPath", path, failures);
+                } else if (kind == 3) {
+                    DynamicArray<String> targets = new DynamicArray<>();
+                    for (Edge<String> e : g.edgesFrom(a)) targets.append(e.getTo());
+                    noRepeats("edgesFrom", targets, failures);
+                } else {
+                    DynamicArray<String> all = new DynamicArray<>();
+                    for (String v : g.vertices()) all.append(v);
+                    noRepeats("vertices", all, failures);
+                }
+            } catch (GraphError e) {
+                String message = e.getMessage();
+                if (!message.contains("не существует")) failures.add("читатель " + reader + ": " + message);
+            } catch (RuntimeException e) {
+                failures.add("читатель " + reader + ": " + e);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static void noRepeats(String what, DynamicArray<String> items, ConcurrentLinkedQueue<String> failures) {
+        HashSet<String> seen = new HashSet<>();
+        for (String v : items) {
+            if (!seen.add(v)) {
+                failures.add(what + ": вершина " + v + " встретилась дважды");
+                return;
+            }
+        }
+    }
+
+    //после остановки всех потоков граф должен в точности совпасть с моделями
+    private static void verify(ConcurrentGraph<String> g, Writer[] writers, boolean directed,
+                               ConcurrentLinkedQueue<String> failures) {
+        int[] sharedDegree = new int[SHARED]; //рёбер писателей, входящих в общую вершину
+        int expectedVertices = SHARED;
+        for (Writer w : writers) {
+            for (int i = 0; i < OWN; i++) {
+                String v = w.own(i);
+                if (g.containsVertex(v) != w.alive[i]) {
+                    failures.add(v + ": containsVertex = " + g.containsVertex(v));
+                    continue;
+                }
+                if (!w.alive[i]) continue;
+                expectedVertices++;
+                int expected = 0;
+                for (int j = 0; j < w.out[i].length; j++) {
+                    int weight = w.out[i][j];
+                    if (weight == -1) continue;
+                    expected++;
+                    if (j < SHARED) sharedDegree[j]++;
+                    if (!g.hasEdge(v, w.target(j))) failures.add("нет ребра " + v + " -> " + w.target(j));
+                }
+                if (g.edgesFrom(v).size() != expected) {
+                    failures.add(v + ": рёбер " + g.edgesFrom(v).size() + ", ожидалось " + expected);
+                }
+            }
+        }
+        if (g.vertexCount() != expectedVertices) {
+            failures.add("вершин " + g.vertexCount() + ", ожидалось " + expectedVertices);
+        }
+        for (int j = 0; j < SHARED; j++) {
+            //в ориентированном графе у общей вершины только входящие рёбра писателей, в неориентированном они же - исходящие
+            int actual = directed ? g.incomingEdges(shared(j)).size() : g.edgesFrom(shared(j)).size();
+            if (actual != sharedDegree[j]) {
+                failures.add(shared(j) + ": входящих рёбер " + actual + ", ожидалось " + sharedDegree[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package bench;
+import exceptions.GraphError;
+import graph.Edge;
+import graph.Graph;
+import structures.DynamicArray;
+import structures.HashMap;
+import java.util.Random;
+//Graph.shortestPath на индексированной куче против прежней Дейкстры с линейным поиском минимума.
+//случайные ориентированные графы со средней степенью 4, время на один запрос между случайными вершинами.
+//прежняя версия O(V^2), поэтому на больших графах она не запускается: предел задаётся первым аргументом
+public class DijkstraBenchmark {
+    private static final int[] SIZES = {10_000, 30_000, 100_000, 300_000, 1_000_000};
+    private static final int QUERIES = 5;
+
+    public static void main(String[] args) {
+        int baselineLimit = args.length > 0 ? Integer.parseInt(args[0]) : 30_000;
+        System.out.println("вершин    рёбер      куча, мс   прежняя, мс");
+        for (int n : SIZES) {
+            Graph<Integer> g = Bench.randomGraph(n, 4, 100, true, n);
+            Random random = new Random(1);
+            int[][] pairs = new int[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) pairs[i] = new int[]{random.nextInt(n), random.nextInt(n)};
+            double heap = Bench.bestMillis(1, () -> {
+                for (int[] p : pairs) query(g, p, false);
+            }) / QUERIES;
+            String old = "-";
+            if (n <= baselineLimit) {
+                old = String.format("%.1f", Bench.millis(() -> query(g, pairs[0], true)));
+            }
+            System.out.printf("%-9d %-10d %-10.1f %s%n", n, edgeCount(g), heap, old);
+        }
+    }
+
+    private static void query(Graph<Integer> g, int[] pair, boolean baseline) {
+        try {
+            if (baseline) {
+                linearScanPath(g, pair[0], pair[1]);
+            } else {
+                g.shortestPath(pair[0], pair[1]);
+            }
+        } catch (GraphError e) {
+            //пути нет - это тоже полный запрос
+        }
+    }
+
+    private static long edgeCount(Graph<Integer> g) {
+        long count = 0;
+        for (Integer v : g.vertices()) count += g.outDegree(v);
+        return count;
+    }
+
+    //прежний Graph.shortestPath: на каждом шаге поиск минимума по всему списку непосещённых и removeAt
+    static <V> DynamicArray<V> linearScanPath(Graph<V> g, V start, V goal) {
+        HashMap<V, Double> dist = new HashMap<>();
+        HashMap<V, V> prev = new HashMap<>();
+        DynamicArray<V> unvisited = new DynamicArray<>();
+        for (V v : g.vertices()) {
+            dist.put(v, Double.POSITIVE_INFINITY);
+            unvisited.append(v);
+        }
+        dist.put(start, 0.0);
+        while (unvisited.size() > 0) {
+            int minIndex = 0;
+            V minVertex = unvisited.get(0);
+            double minDist = dist.get(minVertex);
+            for (int i = 1; i < unvisited.size(); i++) {
+                V v = unvisited.get(i);
+                double d = dist.get(v);
+                if (d < minDist) {
+                    minDist = d;
+                    minVertex = v;
+                    minIndex = i;
+                }
+            }
+            V v = minVertex;
+            unvisited.removeAt(minIndex);
+            if (v.equals(goal) || minDist == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            DynamicArray<Edge<V>> edges = g.edgesFrom(v);
+            for (int i = 0; i < edges.size(); i++) {
+                Edge<V> e = edges.get(i);
+                double alt = minDist + e.getWeight();
+                if (alt < dist.get(e.getTo())) {
+                    dist.put(e.getTo(), alt);
+                    prev.put(e.getTo(), v);
+                }
+            }
+        }
+        if (Double.isInfinite(dist.get(goal))) {
+            throw new GraphError("Кратчайший путь от '" + start + "' до '" + goal + "' не существует");
+        }
+        DynamicArray<V> path = new DynamicArray<>(); //от goal к start, разворот на замер не влияет
+        for (V cur = goal; cur != null; cur = prev.tryGet(cur)) path.append(cur);
+        return path;
+    }
+}
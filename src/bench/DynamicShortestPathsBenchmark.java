@@ -0,0 +1,81 @@
+package bench;
+import graph.DynamicShortestPaths;
+import graph.Edge;
+import graph.Graph;
+import graph.ShortestPathTree;
+import structures.DynamicArray;
+import java.util.Arrays;
+import java.util.Random;
+//цена одного изменения графа с подписанной DynamicShortestPaths против полного пересчёта Дейкстрой.
+//изменения трёх видов: добавление случайного ребра, удаление случайного ребра и удаление ребра дерева
+//кратчайших путей (predecessor(v) -> v) - последнее заставляет чинить целое поддерево.
+//время изменения включает саму правку графа. в конце таблица сверяется с расчётом с нуля.
+//аргументы: [вершин] [изменений каждого вида], по умолчанию 200k вершин (800k рёбер) и 2000
+public class DynamicShortestPathsBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        Graph<Integer> g = Bench.randomGraph(n, 4, 100, true, 9);
+        Random random = new Random(4);
+        double full = Bench.bestMillis(3, () -> fullRecompute(g, 0));
+        DynamicShortestPaths<Integer> paths = g.dynamicShortestPaths(0);
+        String[] names = {"добавление ребра", "удаление ребра", "удаление ребра дерева"};
+        double[] millis = new double[3];
+        long[] affected = new long[3];
+        for (int round = 0; round < 2; round++) { //первый круг - прогрев
+            Arrays.fill(millis, 0);
+            Arrays.fill(affected, 0);
+            for (int i = 0; i < updates; i++) {
+                for (int kind = 0; kind < 3; kind++) {
+                    Runnable update = update(g, paths, kind, random, n);
+                    millis[kind] += Bench.millis(update);
+                    affected[kind] += paths.lastAffected();
+                }
+            }
+        }
+        System.out.printf("вершин %d, полный пересчёт %.1f мс%n", n, full);
+        System.out.println("изменение                  мс на изменение   затронуто вершин   раз быстрее пересчёта");
+        for (int kind = 0; kind < 3; kind++) {
+            double each = millis[kind] / updates;
+            System.out.printf("%-26s %-17.3f %-18d %.0f%n", names[kind], each, affected[kind] / updates, full / each);
+        }
+        ShortestPathTree<Integer> check = g.shortestPathTree(0);
+        for (Integer v : g.vertices()) {
+            if (check.distanceTo(v) != paths.distance(v)) {
+                throw new AssertionError("расстояние до " + v + ": " + paths.distance(v) + ", с нуля " + check.distanceTo(v));
+            }
+        }
+        System.out.println("таблица совпадает с расчётом с нуля");
+        paths.close();
+    }
+
+    //одно изменение заданного вида; выбор ребра - до замера, сама правка - в возвращённом Runnable
+    private static Runnable update(Graph<Integer> g, DynamicShortestPaths<Integer> paths, int kind,
+                                   Random random, int n) {
+        while (true) {
+            int v = random.nextInt(n);
+            if (kind == 0) {
+                int u = random.nextInt(n);
+                if (u != v && !g.hasEdge(v, u)) {
+                    int weight = 1 + random.nextInt(100);
+                    return () -> g.addEdge(v, u, weight);
+                }
+            } else if (kind == 1) {
+                DynamicArray<Edge<Integer>> edges = g.edgesFrom(v);
+                if (!edges.isEmpty()) {
+                    Integer u = edges.get(random.nextInt(edges.size())).getTo();
+                    return () -> g.removeEdge(v, u);
+                }
+            } else {
+                Integer p = paths.predecessor(v);
+                if (p != null) return () -> g.removeEdge(p, v);
+            }
+        }
+    }
+
+    //Дейкстра от source до всех вершин
+    private static void fullRecompute(Graph<Integer> g, Integer source) {
+        ShortestPathTree<Integer> tree = g.shortestPathTree(source);
+        for (Integer v : g.vertices()) tree.distanceTo(v);
+    }
+}
@@ -0,0 +1,193 @@
+package bench;
+import structures.HashMap;
+import java.util.Random;
+import java.util.function.Supplier;
+//churn: в таблице всё время около LIVE ключей, каждый раунд удаляет и добавляет CHURN ключей, как
+//removeVertex/addVertex в графе. после каждого раунда - среднее время поиска имеющегося и отсутствующего ключа.
+//structures.HashMap (удаление со сдвигом) против прежней таблицы с надгробиями, которые чистились только при росте
+public class HashMapBenchmark {
+    private static final int LIVE = 200_000;
+    private static final int CHURN = 50_000;
+    private static final int LOOKUPS = 1_000_000;
+    private static final int BUDGET_SECONDS = 30; //на один раунд churn или одну серию поисков
+
+    //общее у двух таблиц, чтобы гонять один и тот же сценарий
+    private interface Table {
+        void put(Integer key);
+        void remove(Integer key);
+        boolean containsKey(Integer key);
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        //таблицы гоняются по очереди, чтобы мусор одной не влиял на время другой
+        String[] current = run(rounds, () -> {
+            HashMap<Integer, Boolean> map = new HashMap<>();
+            return new Table() {
+                public void put(Integer key) { map.put(key, true); }
+                public void remove(Integer key) { map.remove(key); }
+                public boolean containsKey(Integer key) { return map.containsKey(key); }
+            };
+        });
+        String[] old = run(rounds, () -> {
+            TombstoneMap<Integer, Boolean> map = new TombstoneMap<>();
+            return new Table() {
+                public void put(Integer key) { map.put(key, true); }
+                public void remove(Integer key) { map.remove(key); }
+                public boolean containsKey(Integer key) { return map.containsKey(key); }
+            };
+        });
+        System.out.println("раунд   сдвиг: есть/нет, нс    надгробия: есть/нет, нс");
+        for (int round = 0; round <= rounds; round++) {
+            System.out.printf("%-7d %-22s %s%n", round, current[round], old[round]);
+        }
+    }
+
+    //строка результата на каждый раунд; прежняя таблица деградирует до просмотра всей таблицы на операцию,
+    //поэтому раунд ограничен по времени, и после первого не уложившегося раунда замеры прекращаются
+    private static String[] run(int rounds, Supplier<Table> factory) {
+        String[] result = new String[rounds + 1];
+        Churn churn = new Churn(factory.get());
+        for (int round = 0; round <= rounds; round++) {
+            if (round > 0 && !churn.churn()) {
+                for (int rest = round; rest <= rounds; rest++) result[rest] = "не уложилась в " + BUDGET_SECONDS + " с";
+                break;
+            }
+            result[round] = String.format("%.0f / %.0f", churn.lookups(true), churn.lookups(false));
+        }
+        return result;
+    }
+
+    //живые ключи лежат в массиве, удаляется случайный, на его место приходит новый
+    private static final class Churn {
+        private final Table table;
+        private final int[] live = new int[LIVE];
+        private final Random random = new Random(1);
+        private int next;
+        private int sink;
+
+        Churn(Table table) {
+            this.table = table;
+            for (int i = 0; i < LIVE; i++) {
+                live[i] = fresh();
+                table.put(live[i]);
+            }
+        }
+
+        //ключи идут вразброс, как hashCode строковых имён
+        private int fresh() {
+            return (next++) * 0x9E3779B1;
+        }
+
+        //false, если раунд не уложился в BUDGET_SECONDS
+        boolean churn() {
+            long deadline = System.nanoTime() + BUDGET_SECONDS * 1_000_000_000L;
+            for (int i = 0; i < CHURN; i++) {
+                int slot = random.nextInt(LIVE);
+                table.remove(live[slot]);
+                live[slot] = fresh();
+                table.put(live[slot]);
+                if ((i & 1023) == 0 && System.nanoTime() > deadline) return false;
+            }
+            return true;
+        }
+
+        //среднее время поиска имеющегося ключа (hit) или ключа, которого никогда не было,
+        //не больше LOOKUPS поисков и не дольше BUDGET_SECONDS
+        double lookups(boolean hit) {
+            long start = System.nanoTime();
+            long deadline = start + BUDGET_SECONDS * 1_000_000_000L;
+            int done = 0;
+            while (done < LOOKUPS && ((done & 1023) != 0 || System.nanoTime() < deadline)) {
+                int key = hit ? live[random.nextInt(LIVE)] : -1 - random.nextInt(Integer.MAX_VALUE);
+                if (table.containsKey(key)) sink++;
+                done++;
+            }
+            return (System.nanoTime() - start) / (double) done;
+        }
+    }
+
+    //прежний structures.HashMap: удаление только помечает ячейку, поиск идёт до пустой ячейки
+    private static final class TombstoneMap<K, V> {
+        private static final int INITIAL_CAPACITY = 8;
+        private static final double MAX_LOAD_FACTOR = 0.7;
+
+        private static final class Entry<K, V> {
+            final K key;
+            V value;
+            boolean isActive = true;
+
+            Entry(K key, V value) {
+                this.key = key;
+                this.value = value;
+            }
+        }
+
+        private int capacity = INITIAL_CAPACITY;
+        private int size;
+        private Entry<K, V>[] data = newTable(INITIAL_CAPACITY);
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> Entry<K, V>[] newTable(int capacity) {
+            return (Entry<K, V>[]) new Entry<?, ?>[capacity];
+        }
+
+        private int probeIndex(K key) {
+            return (key.hashCode() & 0x7fffffff) % capacity;
+        }
+
+        private void resize(int newCapacity) {
+            Entry<K, V>[] old = data;
+            capacity = newCapacity;
+            data = newTable(capacity);
+            size = 0;
+            for (Entry<K, V> entry : old) {
+                if (entry != null && entry.isActive) put(entry.key, entry.value);
+            }
+        }
+
+        void put(K key, V value) {
+            if (size + 1 > (int) (capacity * MAX_LOAD_FACTOR)) resize(capacity * 2);
+            int index = probeIndex(key);
+            int firstDeletedIndex = -1;
+            for (int steps = 0; ; steps++) {
+                Entry<K, V> entry = data[index];
+                //прежняя версия в таблице без пустых ячеек зацикливалась, здесь после полного круга берём надгробие
+                if (entry == null || steps == capacity) {
+                    data[firstDeletedIndex != -1 ? firstDeletedIndex : index] = new Entry<>(key, value);
+                    size++;
+                    return;
+                }
+                if (!entry.isActive && firstDeletedIndex == -1) {
+                    firstDeletedIndex = index;
+                } else if (entry.isActive && entry.key.equals(key)) {
+                    entry.value = value;
+                    return;
+                }
+                index = (index + 1) % capacity;
+            }
+        }
+
+        private int findIndex(K key) {
+            int index = probeIndex(key);
+            for (int steps = 0; steps < capacity; steps++) {
+                Entry<K, V> entry = data[index];
+                if (entry == null) return -1;
+                if (entry.isActive && entry.key.equals(key)) return index;
+                index = (index + 1) % capacity;
+            }
+            return -1;
+        }
+
+        void remove(K key) {
+            int index = findIndex(key);
+            if (index == -1) return;
+            data[index].isActive = false;
+            size--;
+        }
+
+        boolean containsKey(K key) {
+            return findIndex(key) != -1;
+        }
+    }
+}
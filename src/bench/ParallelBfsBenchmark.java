@@ -0,0 +1,36 @@
+package bench;
+import graph.BfsResult;
+import graph.CompactGraph;
+import graph.Graph;
+import java.util.concurrent.ForkJoinPool;
+//parallelBfs на 1, 2, 4, ... потоках против последовательного bfsOrder на случайном неориентированном графе.
+//пул на каждое число потоков создаётся один раз и передаётся в parallelBfs, время - лучшее из нескольких запусков.
+//обход идёт по CompactGraph, чтобы в замер не попадало копирование Graph в массивы.
+//аргументы: [вершин] [рёбер на вершину], по умолчанию 2M вершин и 4 ребра на вершину (средняя степень 8)
+public class ParallelBfsBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Graph<Integer> g = Bench.randomGraph(n, degree, 1, false, 3);
+        CompactGraph<Integer> c = g.freeze();
+        g = null;
+        double serial = Bench.bestMillis(ROUNDS, () -> c.bfsOrder(0));
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("вершин %d, ядер %d, bfsOrder %.0f мс%n", n, cores, serial);
+        System.out.println("потоков   расстояния, мс   + порядок, мс   ускорение к bfsOrder");
+        for (int threads = 1; threads <= Math.max(8, cores); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double distances = Bench.bestMillis(ROUNDS, () -> c.parallelBfs(0, pool));
+                double withOrder = Bench.bestMillis(ROUNDS, () -> c.parallelBfs(0, pool).order());
+                System.out.printf("%-9d %-16.0f %-15.0f %.2f%n", threads, distances, withOrder, serial / withOrder);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        BfsResult<Integer> check = c.parallelBfs(0, 1);
+        System.out.println("достижимо вершин: " + check.reachedCount());
+    }
+}
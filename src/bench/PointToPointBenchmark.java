@@ -0,0 +1,61 @@
+package bench;
+import graph.Graph;
+import graph.PathSearch;
+import graph.SearchStats;
+import structures.DynamicArray;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+//точечные запросы shortestPath на решётке, похожей на дорожную сеть: обычная Дейкстра, двусторонняя и A*.
+//для каждого способа - среднее число снятых с кучи вершин (SearchStats) и среднее время запроса;
+//длины найденных путей сверяются, расхождение - ошибка.
+//аргументы: [сторона решётки] [запросов], по умолчанию 700 x 700 (490k вершин) и 50 запросов
+public class PointToPointBenchmark {
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 700;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Graph<Integer> g = Bench.grid(side, 5);
+        //евклидово расстояние по клеткам * 10: вес ребра не меньше 10, поэтому оценка допустима
+        ToDoubleBiFunction<Integer, Integer> heuristic = (v, goal) -> {
+            double dx = v % side - goal % side;
+            double dy = v / side - goal / side;
+            return 10 * Math.sqrt(dx * dx + dy * dy);
+        };
+        Random random = new Random(11);
+        int[][] pairs = new int[queries][];
+        for (int i = 0; i < queries; i++) pairs[i] = new int[]{random.nextInt(side * side), random.nextInt(side * side)};
+        String[] names = {"Дейкстра", "двусторонняя", "A*"};
+        long[] settled = new long[3];
+        double[] millis = new double[3];
+        for (int round = 0; round < 2; round++) { //первый круг - прогрев
+            Arrays.fill(settled, 0);
+            Arrays.fill(millis, 0);
+            for (int[] p : pairs) {
+                int[] weights = new int[3];
+                for (int mode = 0; mode < 3; mode++) {
+                    SearchStats stats = new SearchStats();
+                    int m = mode;
+                    millis[mode] += Bench.millis(() -> weights[m] = g.pathWeight(query(g, p, m, heuristic, stats)));
+                    settled[mode] += stats.settled();
+                }
+                if (weights[0] != weights[1] || weights[0] != weights[2]) {
+                    throw new AssertionError("длины путей " + p[0] + " -> " + p[1] + " разные: "
+                            + weights[0] + ", " + weights[1] + ", " + weights[2]);
+                }
+            }
+        }
+        System.out.printf("решётка %d x %d, %d запросов%n", side, side, queries);
+        System.out.println("способ         снято с кучи   доля от Дейкстры   мс на запрос");
+        for (int mode = 0; mode < 3; mode++) {
+            System.out.printf("%-14s %-14d %-18.2f %.1f%n", names[mode], settled[mode] / queries,
+                    (double) settled[mode] / settled[0], millis[mode] / queries);
+        }
+    }
+
+    private static DynamicArray<Integer> query(Graph<Integer> g, int[] p, int mode,
+                                               ToDoubleBiFunction<Integer, Integer> heuristic, SearchStats stats) {
+        if (mode == 0) return g.shortestPath(p[0], p[1], PathSearch.DIJKSTRA, stats);
+        if (mode == 1) return g.shortestPath(p[0], p[1], PathSearch.BIDIRECTIONAL, stats);
+        return g.shortestPath(p[0], p[1], heuristic, stats);
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+import graph.Edge;
+import graph.Graph;
+import structures.DynamicArray;
+import structures.HashMap;
+import structures.Queue;
+//BFS на кольцевой очереди против прежней очереди, где dequeue сдвигал весь массив (removeAt(0)).
+//случайные неориентированные графы со средней степенью 8 - фронтир быстро становится широким.
+//если время на вершину у Graph.bfsOrder не растёт с размером графа, обход линейный.
+//прежняя очередь квадратична, предел числа вершин для неё - первый аргумент
+public class QueueBenchmark {
+    private static final int[] SIZES = {125_000, 250_000, 500_000, 1_000_000, 2_000_000};
+
+    //прежний structures.Queue
+    private static final class ShiftingQueue<T> {
+        private final DynamicArray<T> data = new DynamicArray<>();
+
+        boolean isEmpty() { return data.size() == 0; }
+
+        void enqueue(T value) { data.append(value); }
+
+        T dequeue() { return data.removeAt(0); }
+    }
+
+    public static void main(String[] args) {
+        int baselineLimit = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        System.out.println("вершин    bfsOrder, мс  нс/вершину  кольцо, мс  прежняя, мс  макс. очередь");
+        for (int n : SIZES) {
+            Graph<Integer> g = Bench.randomGraph(n, 4, 1, false, n);
+            double order = Bench.bestMillis(2, () -> g.bfsOrder(0));
+            int[] width = new int[1];
+            double ring = Bench.bestMillis(2, () -> width[0] = ringBfs(g, 0));
+            String old = "-";
+            if (n <= baselineLimit) old = String.format("%.0f", Bench.millis(() -> shiftingBfs(g, 0)));
+            System.out.printf("%-9d %-13.0f %-11.0f %-11.0f %-12s %d%n", n, order, order * 1e6 / n, ring, old, width[0]);
+        }
+    }
+
+    //BFS по публичному API на structures.Queue, возвращает наибольшую длину очереди
+    private static int ringBfs(Graph<Integer> g, Integer start) {
+        HashMap<Integer, Boolean> visited = new HashMap<>();
+        Queue<Integer> queue = new Queue<>();
+        visited.put(start, true);
+        queue.enqueue(start);
+        int widest = 1;
+        while (!queue.isEmpty()) {
+            Integer v = queue.dequeue();
+            for (Edge<Integer> e : g.edgesFrom(v)) {
+                if (!visited.containsKey(e.getTo())) {
+                    visited.put(e.getTo(), true);
+                    queue.enqueue(e.getTo());
+                }
+            }
+            widest = Math.max(widest, queue.size());
+        }
+        return widest;
+    }
+
+    //тот же обход на прежней очереди
+    private static void shiftingBfs(Graph<Integer> g, Integer start) {
+        HashMap<Integer, Boolean> visited = new HashMap<>();
+        ShiftingQueue<Integer> queue = new ShiftingQueue<>();
+        visited.put(start, true);
+        queue.enqueue(start);
+        while (!queue.isEmpty()) {
+            Integer v = queue.dequeue();
+            for (Edge<Integer> e : g.edgesFrom(v)) {
+                if (!visited.containsKey(e.getTo())) {
+                    visited.put(e.getTo(), true);
+                    queue.enqueue(e.getTo());
+                }
+            }
+        }
+    }
+}
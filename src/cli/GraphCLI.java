@@ -200,8 +200,11 @@ public class GraphCLI {
     private void actionLoadFromFile() {
         System.out.print("Файл: ");
         String file = scanner.nextLine().trim();
-        graph = GraphIO.loadFromFile(d -> new Graph<>(d), file, s -> s);
+        GraphIO.LoadStats stats = new GraphIO.LoadStats();
+        graph = GraphIO.loadStreaming(file, s -> s, stats);
         System.out.println("Граф загружен");
+        System.out.printf("Прочитано строк: %d, рёбер: %d (%.0f строк/с)%n",
+                stats.lines(), stats.edges(), stats.linesPerSecond());
     }
     private void actionExit() {
         System.out.println("Выход");
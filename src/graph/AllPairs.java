@@ -0,0 +1,143 @@
+package graph;
+import structures.IndexedHeap;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+//алгоритмы всех попарных кратчайших расстояний над Csr, результат - в LongMatrix.
+//строки и столбцы матрицы - плотные номера вершин (index), свободные id в матрицу не попадают
+final class AllPairs {
+    private AllPairs() {}
+
+    //недостижимая пара; сумма двух таких значений не переполняет long, поэтому в ядре Floyd-Warshall нет проверок
+    static final long UNREACHED = Long.MAX_VALUE / 4;
+    private static final int TILE = 64;        //плитка 64 x 64 long - 32 КиБ, три плитки помещаются в кеш L2
+    private static final int ROW_GRAIN = 16;
+    private static final int SOURCE_GRAIN = 4;
+    private static final int HEAP_STEP_COST = 16; //уровень кучи при извлечении вершины - примерно 16 шагов Floyd-Warshall
+
+    //Floyd-Warshall - V^3 шагов, Johnson - V раз по E проверок рёбер (шаг каждая) и V извлечений из кучи.
+    //по замерам Johnson быстрее почти всегда, Floyd-Warshall выигрывает только на графах, близких к полным
+    static ApspEngine choose(int n, long edges) {
+        double floyd = (double) n * n * n;
+        double log = Math.max(1, 31 - Integer.numberOfLeadingZeros(Math.max(1, n)));
+        double johnson = (double) n * (edges + HEAP_STEP_COST * n * log);
+        return johnson < floyd ? ApspEngine.JOHNSON : ApspEngine.FLOYD_WARSHALL;
+    }
+
+    //блочный Floyd-Warshall: для каждой диагональной плитки kb сначала замыкается она сама,
+    //потом плитки её строки и столбца (через неё), потом все остальные плитки (через плитки строки и столбца kb).
+    //внутри фазы плитки независимы и считаются параллельно, каждая копируется в локальный массив
+    static void floydWarshall(Csr out, int[] index, int[] ids, LongMatrix m, ForkJoinPool pool) {
+        int n = ids.length;
+        Parallel.forChunks(pool, n, ROW_GRAIN, (chunk, from, to) -> {
+            long[] row = new long[n];
+            for (int i = from; i < to; i++) {
+                Arrays.fill(row, UNREACHED);
+                row[i] = 0;
+                int v = ids[i];
+                for (int e = out.offsets[v]; e < out.offsets[v + 1]; e++) {
+                    int j = index[out.targets[e]];
+                    row[j] = Math.min(row[j], out.weights[e]);
+                }
+                m.write(i, 0, row, 0, n);
+            }
+        });
+        int tiles = (n + TILE - 1) / TILE;
+        for (int kb = 0; kb < tiles; kb++) {
+            int k = kb;
+            long[] diagonal = load(m, k, k);
+            relax(diagonal, diagonal, diagonal);
+            store(m, k, k, diagonal);
+            long[][] rowTiles = new long[tiles][];
+            long[][] columnTiles = new long[tiles][];
+            rowTiles[k] = diagonal;
+            columnTiles[k] = diagonal;
+            Parallel.forChunks(pool, 2 * (tiles - 1), 1, (chunk, from, to) -> {
+                for (int t = from; t < to; t++) {
+                    int other = t % (tiles - 1);
+                    if (other >= k) other++;
+                    if (t < tiles - 1) {
+                        long[] tile = load(m, k, other);
+                        relax(tile, diagonal, tile);
+                        store(m, k, other, tile);
+                        rowTiles[other] = tile;
+                    } else {
+                        long[] tile = load(m, other, k);
+                        relax(tile, tile, diagonal);
+                        store(m, other, k, tile);
+                        columnTiles[other] = tile;
+                    }
+                }
+            });
+            Parallel.forChunks(pool, tiles * tiles, 1, (chunk, from, to) -> {
+                for (int t = from; t < to; t++) {
+                    int i = t / tiles;
+                    int j = t % tiles;
+                    if (i == k || j == k) continue;
+                    long[] tile = load(m, i, j);
+                    relax(tile, columnTiles[i], rowTiles[j]);
+                    store(m, i, j, tile);
+                }
+            });
+        }
+    }
+
+    //c[i][j] = min(c[i][j], a[i][k] + b[k][j]); k во внешнем цикле, поэтому c может быть тем же массивом, что a или b
+    private static void relax(long[] c, long[] a, long[] b) {
+        for (int k = 0; k < TILE; k++) {
+            int bk = k * TILE;
+            for (int i = 0; i < TILE; i++) {
+                long aik = a[i * TILE + k];
+                if (aik >= UNREACHED) continue;
+                int ci = i * TILE;
+                for (int j = 0; j < TILE; j++) {
+                    c[ci + j] = Math.min(c[ci + j], aik + b[bk + j]);
+                }
+            }
+        }
+    }
+
+    //плитка (bi, bj); за краем матрицы - UNREACHED, такие ячейки ничего не улучшают
+    private static long[] load(LongMatrix m, int bi, int bj) {
+        long[] tile = new long[TILE * TILE];
+        Arrays.fill(tile, UNREACHED);
+        int rows = Math.min(TILE, m.size() - bi * TILE);
+        int cols = Math.min(TILE, m.size() - bj * TILE);
+        for (int r = 0; r < rows; r++) m.read(bi * TILE + r, bj * TILE, tile, r * TILE, cols);
+        return tile;
+    }
+
+    private static void store(LongMatrix m, int bi, int bj, long[] tile) {
+        int rows = Math.min(TILE, m.size() - bi * TILE);
+        int cols = Math.min(TILE, m.size() - bj * TILE);
+        for (int r = 0; r < rows; r++) m.write(bi * TILE + r, bj * TILE, tile, r * TILE, cols);
+    }
+
+    //Дейкстра от каждой вершины, источники раздаются потокам кусками, у куска свои массивы и куча
+    static void johnson(Csr out, int[] index, int[] ids, LongMatrix m, ForkJoinPool pool) {
+        int n = ids.length;
+        Parallel.forChunks(pool, n, SOURCE_GRAIN, (chunk, from, to) -> {
+            long[] dist = new long[out.size()];
+            IndexedHeap heap = new IndexedHeap(out.size());
+            long[] row = new long[n];
+            for (int i = from; i < to; i++) {
+                Arrays.fill(dist, UNREACHED);
+                dist[ids[i]] = 0;
+                heap.offer(ids[i], 0);
+                while (!heap.isEmpty()) {
+                    int v = heap.pollMin();
+                    long dv = dist[v];
+                    for (int e = out.offsets[v]; e < out.offsets[v + 1]; e++) {
+                        int u = out.targets[e];
+                        long alt = dv + out.weights[e];
+                        if (alt < dist[u]) {
+                            dist[u] = alt;
+                            heap.offer(u, alt);
+                        }
+                    }
+                }
+                for (int j = 0; j < n; j++) row[j] = dist[ids[j]];
+                m.write(i, 0, row, 0, n);
+            }
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package graph;
+//способ подсчёта всех попарных кратчайших расстояний
+public enum ApspEngine {
+    //выбрать по плотности графа: Floyd-Warshall для плотных, Johnson для разреженных
+    AUTO,
+    //блочный Floyd-Warshall, O(V^3), плитки матрицы обрабатываются параллельно
+    FLOYD_WARSHALL,
+    //Дейкстра от каждой вершины параллельно, O(V (E + V) log V); веса неотрицательны, поэтому перевзвешивание не нужно
+    JOHNSON
+}
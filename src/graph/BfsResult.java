@@ -0,0 +1,91 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import java.util.concurrent.ForkJoinPool;
+//результат многопоточного BFS: число рёбер до каждой вершины и порядок обхода
+//расстояния считаются сразу, порядок - при первом вызове order(), тоже параллельно.
+//результат относится к графу на момент обхода, после изменения графа его нужно пересчитать
+public class BfsResult<V> {
+    private final IndexedGraph<V> graph;
+    private final Csr out;
+    private final int source;
+    private final int[] distance; //id -> число рёбер от source, -1 если недостижима
+    private final ForkJoinPool pool; //пул вызывающего или null, если пул создавался на один обход
+    private final int parallelism;
+    private int[] order;          //id в порядке обхода, null пока не запрошен
+
+    private BfsResult(IndexedGraph<V> graph, Csr out, int source, int[] distance,
+                      ForkJoinPool pool, int parallelism) {
+        this.graph = graph;
+        this.out = out;
+        this.source = source;
+        this.distance = distance;
+        this.pool = pool;
+        this.parallelism = parallelism;
+    }
+
+    //многопоточный BFS от вершины start в своём пуле на parallelism потоков
+    static <V> BfsResult<V> run(IndexedGraph<V> g, int start, int parallelism) {
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Csr out = Csr.of(g, pool);
+            return new BfsResult<>(g, out, start, ParallelBfs.distances(out, start, pool), null, parallelism);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //то же в пуле вызывающего: пул не закрывается и используется потом и для order()
+    static <V> BfsResult<V> run(IndexedGraph<V> g, int start, ForkJoinPool pool) {
+        if (pool == null) throw new GraphError("Пул потоков не может быть пустым");
+        Csr out = Csr.of(g, pool);
+        return new BfsResult<>(g, out, start, ParallelBfs.distances(out, start, pool), pool, pool.getParallelism());
+    }
+
+    private int ensureVertexExists(V v) {
+        int id = graph.idOf(v);
+        if (id == -1) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    public V source() {
+        return graph.vertexAt(source);
+    }
+
+    //число рёбер в кратчайшем по числу рёбер пути от source, -1 если вершина недостижима
+    public int distance(V v) {
+        int id = ensureVertexExists(v);
+        return id < distance.length ? distance[id] : -1;
+    }
+
+    public boolean isReachable(V v) {
+        return distance(v) != -1;
+    }
+
+    //сколько вершин достижимо, включая source
+    public int reachedCount() {
+        int count = 0;
+        for (int d : distance) if (d != -1) count++;
+        return count;
+    }
+
+    //порядок обхода, такой же, как у последовательного bfsOrder
+    public DynamicArray<V> order() {
+        if (order == null && pool != null) {
+            order = ParallelBfs.order(out, distance, source, pool);
+        } else if (order == null) {
+            ForkJoinPool own = new ForkJoinPool(parallelism);
+            try {
+                order = ParallelBfs.order(out, distance, source, own);
+            } finally {
+                own.shutdown();
+            }
+        }
+        DynamicArray<V> result = new DynamicArray<>(Math.max(1, order.length));
+        for (int id : order) result.append(graph.vertexAt(id));
+        return result;
+    }
+}
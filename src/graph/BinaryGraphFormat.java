@@ -0,0 +1,225 @@
+package graph;
+import exceptions.GraphError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+//бинарный формат графа, все числа int little-endian:
+//заголовок  magic, version, flags (бит 0 - ориентированный), n, m, nameBytes, hashSlots, 0
+//nameOffsets int[n + 1]  - начало имени вершины id в блоке имён
+//hashTable   int[hashSlots] - открытая адресация по хешу имени, id + 1, 0 - пусто
+//offsets     int[n + 1], targets int[m], weights int[m] - CSR как в CompactGraph
+//names       byte[nameBytes] - имена вершин (toString) в UTF-8
+//каждый блок отображается в память отдельно, поэтому граф читается без разбора и копирования рёбер
+final class BinaryGraphFormat {
+    static final int MAGIC = 0x48505247; //"GRPH"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private BinaryGraphFormat() {}
+
+    static <V> void save(CompactGraph<V> graph, String filename) throws IOException {
+        int n = graph.vertexCount();
+        int m = graph.edgeCount();
+        byte[][] names = new byte[n][];
+        long nameBytes = 0;
+        for (int id = 0; id < n; id++) {
+            names[id] = graph.vertexAt(id).toString().getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[id].length;
+        }
+        if (nameBytes > Integer.MAX_VALUE) throw new GraphError("Слишком длинный словарь вершин");
+        int hashSlots = 16;
+        while (hashSlots < 2L * n) hashSlots <<= 1;
+        int[] table = new int[hashSlots];
+        for (int id = 0; id < n; id++) {
+            int index = NameTable.hash(names[id], 0, names[id].length) & (hashSlots - 1);
+            while (table[index] != 0) {
+                byte[] other = names[table[index] - 1];
+                if (Arrays.equals(other, names[id])) {
+                    throw new GraphError("Две вершины записываются одинаково: '" + graph.vertexAt(id) + "'");
+                }
+                index = (index + 1) & (hashSlots - 1);
+            }
+            table[index] = id + 1;
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            IntWriter out = new IntWriter(channel);
+            out.put(MAGIC);
+            out.put(VERSION);
+            out.put(graph.isDirected() ? 1 : 0);
+            out.put(n);
+            out.put(m);
+            out.put((int) nameBytes);
+            out.put(hashSlots);
+            out.put(0);
+            int pos = 0;
+            for (int id = 0; id < n; id++) {
+                out.put(pos);
+                pos += names[id].length;
+            }
+            out.put(pos);
+            for (int slot : table) out.put(slot);
+            for (int id = 0; id < n; id++) out.put(graph.firstEdge(id));
+            out.put(m);
+            for (int e = 0; e < m; e++) out.put(graph.target(e));
+            for (int e = 0; e < m; e++) out.put(graph.weight(e));
+            for (byte[] name : names) out.put(name);
+            out.flush();
+        }
+    }
+
+    static <V> CompactGraph<V> load(String filename, GraphIO.VertexParser<V> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) == -1) throw new GraphError("Файл слишком короткий для бинарного графа");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new GraphError("Файл не является бинарным графом");
+            int version = header.getInt();
+            if (version != VERSION) throw new GraphError("Неподдерживаемая версия формата: " + version);
+            boolean directed = (header.getInt() & 1) != 0;
+            int n = header.getInt();
+            int m = header.getInt();
+            int nameBytes = header.getInt();
+            int hashSlots = header.getInt();
+            if (n < 0 || m < 0 || nameBytes < 0 || hashSlots <= 0 || Integer.bitCount(hashSlots) != 1) {
+                throw new GraphError("Повреждён заголовок бинарного графа");
+            }
+            long pos = HEADER_BYTES;
+            long nameOffsetsAt = pos;
+            pos += 4L * (n + 1);
+            long hashAt = pos;
+            pos += 4L * hashSlots;
+            long offsetsAt = pos;
+            pos += 4L * (n + 1);
+            long targetsAt = pos;
+            pos += 4L * m;
+            long weightsAt = pos;
+            pos += 4L * m;
+            long namesAt = pos;
+            pos += nameBytes;
+            if (channel.size() < pos) throw new GraphError("Бинарный граф обрезан");
+
+            MappedDictionary<V> dictionary = new MappedDictionary<>(n, parser,
+                    mapInts(channel, nameOffsetsAt, n + 1),
+                    mapInts(channel, hashAt, hashSlots),
+                    map(channel, namesAt, nameBytes));
+            return new CompactGraph<>(directed, dictionary,
+                    mapInts(channel, offsetsAt, n + 1),
+                    mapInts(channel, targetsAt, m),
+                    mapInts(channel, weightsAt, m));
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long bytes) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return map(channel, position, 4L * count).asIntBuffer();
+    }
+
+    //словарь вершин, который читает имена прямо из отображённого файла
+    //объект вершины создаётся парсером при первом обращении и запоминается
+    private static final class MappedDictionary<V> implements VertexDictionary<V> {
+        private final int size;
+        private final GraphIO.VertexParser<V> parser;
+        private final IntBuffer nameOffsets;
+        private final IntBuffer table;
+        private final ByteBuffer names;
+        private Object[] cache; //создаётся при первом обращении к вершине
+
+        MappedDictionary(int size, GraphIO.VertexParser<V> parser,
+                         IntBuffer nameOffsets, IntBuffer table, ByteBuffer names) {
+            this.size = size;
+            this.parser = parser;
+            this.nameOffsets = nameOffsets;
+            this.table = table;
+            this.names = names;
+        }
+
+        public int size() {
+            return size; }
+
+        private boolean sameName(int id, byte[] name) {
+            int from = nameOffsets.get(id);
+            if (nameOffsets.get(id + 1) - from != name.length) return false;
+            for (int i = 0; i < name.length; i++) {
+                if (names.get(from + i) != name[i]) return false;
+            }
+            return true;
+        }
+
+        public int idOf(V v) {
+            if (v == null) return -1;
+            byte[] name = v.toString().getBytes(StandardCharsets.UTF_8);
+            int mask = table.limit() - 1;
+            int index = NameTable.hash(name, 0, name.length) & mask;
+            while (table.get(index) != 0) {
+                int id = table.get(index) - 1;
+                if (sameName(id, name)) return id;
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V vertexAt(int id) {
+            if (id < 0 || id >= size) throw new GraphError("Вершины с id " + id + " нет в графе");
+            if (cache == null) cache = new Object[size];
+            Object v = cache[id];
+            if (v == null) {
+                int from = nameOffsets.get(id);
+                byte[] name = new byte[nameOffsets.get(id + 1) - from];
+                for (int i = 0; i < name.length; i++) name[i] = names.get(from + i);
+                v = parser.parse(new String(name, StandardCharsets.UTF_8));
+                cache[id] = v;
+            }
+            return (V) v;
+        }
+    }
+
+    //буферизованная запись int в канал
+    static final class IntWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        IntWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void put(int value) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+        }
+
+        void put(long value) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int len = Math.min(buffer.remaining(), bytes.length - off);
+                buffer.put(bytes, off, len);
+                off += len;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
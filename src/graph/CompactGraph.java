@@ -0,0 +1,416 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.HashMap;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Stream;
+//неизменяемый снимок графа в формате CSR (compressed sparse row)
+//вершины пронумерованы подряд, рёбра вершины id лежат в targets/weights на отрезке [offsets[id], offsets[id + 1])
+//массивы могут быть обычными (freeze) или отображёнными из бинарного файла (GraphIO.loadBinary)
+public class CompactGraph<V> implements IndexedGraph<V> {
+    private final boolean directed;
+    private final VertexDictionary<V> dictionary; //вершина <-> id
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private CompactGraph<V> reversed; //для двустороннего поиска, null пока не понадобился
+
+    CompactGraph(Graph<V> graph) {
+        this.directed = graph.isDirected();
+        HeapDictionary<V> dict = new HeapDictionary<>(graph.vertexCount());
+        for (V v : graph.vertices()) {
+            dict.add(v);
+        }
+        int n = dict.size();
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + graph.edgesFrom(dict.vertexAt(i)).size();
+        }
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int k = offsets[i];
+            for (Edge<V> e : graph.edgesFrom(dict.vertexAt(i))) {
+                targets[k] = dict.idOf(e.getTo());
+                weights[k] = e.getWeight();
+                k++;
+            }
+        }
+        this.dictionary = dict;
+        this.offsets = IntBuffer.wrap(offsets);
+        this.targets = IntBuffer.wrap(targets);
+        this.weights = IntBuffer.wrap(weights);
+    }
+
+    //готовые массивы, например отображённые из файла
+    CompactGraph(boolean directed, VertexDictionary<V> dictionary,
+                 IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+        this.directed = directed;
+        this.dictionary = dictionary;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    //граф с развёрнутыми рёбрами и тем же словарём, строится при первом обратном поиске
+    private IndexedGraph<V> reversed() {
+        if (!directed) return this;
+        CompactGraph<V> r = reversed;
+        if (r == null) {
+            int n = vertexCount();
+            int m = edgeCount();
+            int[] rOffsets = new int[n + 1];
+            for (int e = 0; e < m; e++) rOffsets[targets.get(e) + 1]++;
+            for (int i = 0; i < n; i++) rOffsets[i + 1] += rOffsets[i];
+            int[] fill = new int[n];
+            int[] rTargets = new int[m];
+            int[] rWeights = new int[m];
+            for (int v = 0; v < n; v++) {
+                for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+                    int u = targets.get(e);
+                    int slot = rOffsets[u] + fill[u]++;
+                    rTargets[slot] = v;
+                    rWeights[slot] = weights.get(e);
+                }
+            }
+            r = new CompactGraph<>(true, dictionary, IntBuffer.wrap(rOffsets), IntBuffer.wrap(rTargets), IntBuffer.wrap(rWeights));
+            reversed = r;
+        }
+        return r;
+    }
+
+    //словарь в памяти: массив вершин и хеш-таблица
+    private static final class HeapDictionary<V> implements VertexDictionary<V> {
+        private final DynamicArray<V> vertices;
+        private final HashMap<V, Integer> ids;
+
+        HeapDictionary(int expected) {
+            this.vertices = new DynamicArray<>(Math.max(1, expected));
+            this.ids = new HashMap<>(expected);
+        }
+
+        void add(V v) {
+            ids.put(v, vertices.size());
+            vertices.append(v);
+        }
+
+        public int size() {
+            return vertices.size(); }
+
+        public int idOf(V v) {
+            Integer id = ids.tryGet(v);
+            return id == null ? -1 : id;
+        }
+
+        public V vertexAt(int id) {
+            return vertices.get(id); }
+    }
+
+    public boolean isDirected() {
+        return directed; }
+
+    public int vertexCount() {
+        return dictionary.size(); }
+
+    //количество хранимых дуг, в неориентированном графе каждое ребро хранится дважды
+    public int edgeCount() {
+        return targets.limit(); }
+
+    public boolean containsVertex(V v) {
+        return dictionary.idOf(v) != -1; }
+
+    //id вершины или -1, если её нет
+    public int idOf(V v) {
+        return dictionary.idOf(v);
+    }
+
+    public V vertexAt(int id) {
+        return dictionary.vertexAt(id);
+    }
+
+    //низкоуровневый доступ к рёбрам без выделения памяти:
+    //for (int e = g.firstEdge(id); e < g.endEdge(id); e++) { g.target(e); g.weight(e); }
+    public int firstEdge(int id) {
+        return offsets.get(id); }
+
+    public int endEdge(int id) {
+        return offsets.get(id + 1); }
+
+    public int target(int edge) {
+        return targets.get(edge); }
+
+    public int weight(int edge) {
+        return weights.get(edge); }
+
+    public int degree(int id) {
+        return offsets.get(id + 1) - offsets.get(id); }
+
+    public int idBound() {
+        return dictionary.size(); }
+
+    public int targetAt(int id, int k) {
+        return targets.get(offsets.get(id) + k); }
+
+    public int weightAt(int id, int k) {
+        return weights.get(offsets.get(id) + k); }
+
+    private int requireId(V v) {
+        int id = dictionary.idOf(v);
+        if (id == -1) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    //вершины в порядке id
+    public Iterable<V> vertices() {
+        return () -> new Iterator<V>() {
+            private int id = 0;
+
+            @Override
+            public boolean hasNext() {
+                return id < dictionary.size();
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет вершин");
+                }
+                return dictionary.vertexAt(id++);
+            }
+        };
+    }
+
+    //получить список соседей вершины
+    public DynamicArray<V> getAdjacent(V v) {
+        int id = requireId(v);
+        DynamicArray<V> result = new DynamicArray<>(Math.max(1, degree(id)));
+        for (int e = offsets.get(id); e < offsets.get(id + 1); e++) {
+            result.append(vertexAt(targets.get(e)));
+        }
+        return result;
+    }
+
+    //DFS на массиве-стеке, порядок совпадает с Graph.dfsOrder
+    public DynamicArray<V> dfsOrder(V start) {
+        int s = requireId(start);
+        boolean[] visited = new boolean[vertexCount()];
+        int[] stack = new int[edgeCount() + 1]; //каждая дуга кладёт в стек не больше одной вершины
+        int top = 0;
+        DynamicArray<V> order = new DynamicArray<>();
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[--top];
+            if (visited[v]) {
+                continue;
+            }
+            visited[v] = true;
+            order.append(vertexAt(v));
+            //соседей кладём в обратном порядке
+            for (int e = offsets.get(v + 1) - 1; e >= offsets.get(v); e--) {
+                if (!visited[targets.get(e)]) {
+                    stack[top++] = targets.get(e);
+                }
+            }
+        }
+        return order;
+    }
+
+    //BFS, сам массив порядка обхода служит очередью
+    public DynamicArray<V> bfsOrder(V start) {
+        int s = requireId(start);
+        boolean[] visited = new boolean[vertexCount()];
+        int[] queue = new int[vertexCount()];
+        int head = 0;
+        int tail = 0;
+        visited[s] = true;
+        queue[tail++] = s;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+                int u = targets.get(e);
+                if (!visited[u]) {
+                    visited[u] = true;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        DynamicArray<V> order = new DynamicArray<>(Math.max(1, tail));
+        for (int i = 0; i < tail; i++) {
+            order.append(vertexAt(queue[i]));
+        }
+        return order;
+    }
+
+    //BFS с посетителем: он видит вершины с родителем и глубиной и рёбра, может отсечь поддерево (SKIP_SUBTREE)
+    //или остановить обход (STOP). порядок обхода не собирается. true, если обход остановлен посетителем
+    public boolean bfs(V start, TraversalVisitor<V> visitor) {
+        if (visitor == null) throw new GraphError("Посетитель не может быть пустым");
+        return Traversals.bfs(this, requireId(start), visitor);
+    }
+
+    //DFS с посетителем, рёбра каждой вершины просматриваются по порядку, как в рекурсивном DFS
+    public boolean dfs(V start, TraversalVisitor<V> visitor) {
+        if (visitor == null) throw new GraphError("Посетитель не может быть пустым");
+        return Traversals.dfs(this, requireId(start), visitor);
+    }
+
+    //есть ли путь из start в goal не длиннее maxHops рёбер, дальше maxHops обход не идёт
+    public boolean isReachableWithin(V start, V goal, int maxHops) {
+        if (maxHops < 0) throw new GraphError("Число рёбер не может быть отрицательным");
+        return Traversals.withinHops(this, requireId(start), requireId(goal), maxHops);
+    }
+
+    //ленивые обходы: вершины выдаются по одной, в памяти только граница (стек) и посещённые,
+    //обход можно оборвать в любой момент
+    public Iterator<V> bfsIterator(V start) {
+        return Traversals.bfsIterator(this, requireId(start));
+    }
+
+    public Iterator<V> dfsIterator(V start) {
+        return Traversals.dfsIterator(this, requireId(start));
+    }
+
+    //то же потоком, limit()/takeWhile() останавливают обход
+    public Stream<V> bfsStream(V start) {
+        return Traversals.stream(bfsIterator(start));
+    }
+
+    public Stream<V> dfsStream(V start) {
+        return Traversals.stream(dfsIterator(start));
+    }
+
+    //многопоточный BFS по уровням: расстояния в рёбрах до всех вершин и порядок обхода
+    public BfsResult<V> parallelBfs(V start, int parallelism) {
+        return BfsResult.run(this, requireId(start), parallelism);
+    }
+
+    //то же в пуле вызывающего, чтобы частые обходы не создавали каждый раз новые потоки; пул не закрывается
+    public BfsResult<V> parallelBfs(V start, ForkJoinPool pool) {
+        return BfsResult.run(this, requireId(start), pool);
+    }
+
+    //Дейкстра на индексированной куче, та же, что у Graph
+    public DynamicArray<V> shortestPath(V start, V goal) {
+        int s = requireId(start);
+        int g = requireId(goal);
+        return Traversals.shortestPath(this, s, g, null);
+    }
+
+    //кратчайший путь выбранным способом, stats (может быть null) получает число снятых с кучи вершин
+    public DynamicArray<V> shortestPath(V start, V goal, PathSearch search, SearchStats stats) {
+        int s = requireId(start);
+        int g = requireId(goal);
+        if (search == PathSearch.BIDIRECTIONAL) {
+            return Traversals.bidirectionalPath(this, reversed(), s, g, stats);
+        }
+        return Traversals.shortestPath(this, s, g, stats);
+    }
+
+    public DynamicArray<V> shortestPath(V start, V goal, PathSearch search) {
+        return shortestPath(start, goal, search, null);
+    }
+
+    //A* с оценкой heuristic(v, goal) оставшегося расстояния, оценка не должна превышать настоящее расстояние
+    public DynamicArray<V> shortestPath(V start, V goal, ToDoubleBiFunction<V, V> heuristic, SearchStats stats) {
+        int s = requireId(start);
+        int g = requireId(goal);
+        return Traversals.astarPath(this, s, g, heuristic, stats);
+    }
+
+    public DynamicArray<V> shortestPath(V start, V goal, ToDoubleBiFunction<V, V> heuristic) {
+        return shortestPath(start, goal, heuristic, null);
+    }
+
+    //опорные вершины для оценок расстояний и A* (ALT), память - k * V * 4 байта на направление
+    public Landmarks<V> landmarks(int count, LandmarkSelection selection, int parallelism) {
+        return Landmarks.build(this, count, selection, parallelism);
+    }
+
+    //индекс Contraction Hierarchies для быстрых запросов кратчайшего пути, предобработка делается один раз
+    public ContractionHierarchy<V> contract() {
+        return ContractionHierarchy.build(this);
+    }
+
+    //расстояния в рёбрах от многих источников сразу (MS-BFS пачками по 64), матрица источник x id
+    public HopDistances<V> hopDistances(Iterable<V> sources, int parallelism) {
+        return HopDistances.run(this, sources, parallelism);
+    }
+
+    //то же без общей матрицы: consumer получает каждый источник и его массив id -> число рёбер (-1 - недостижима)
+    public void hopDistances(Iterable<V> sources, int parallelism, BiConsumer<V, int[]> consumer) {
+        HopDistances.stream(this, sources, parallelism, consumer);
+    }
+
+    //все попарные кратчайшие расстояния; engine - Floyd-Warshall, Johnson или AUTO (выбор по плотности графа)
+    public DistanceMatrix<V> allPairsShortestPaths(ApspEngine engine, int parallelism) {
+        return DistanceMatrix.compute(this, engine, parallelism, null);
+    }
+
+    //то же с матрицей в файле filename, отображённом в память (V * V * 8 байт), результат нужно закрыть
+    public DistanceMatrix<V> allPairsShortestPaths(ApspEngine engine, int parallelism, String filename) {
+        if (filename == null) throw new GraphError("Имя файла не может быть пустым");
+        return DistanceMatrix.compute(this, engine, parallelism, filename);
+    }
+
+    //компоненты связности (у ориентированного графа - слабой связности), параллельный union-find
+    public Components<V> connectedComponents(int parallelism) {
+        return Components.connected(this, parallelism);
+    }
+
+    //компоненты сильной связности без рекурсии: parallelism == 1 - Tarjan, больше - параллельный forward-backward
+    public Components<V> stronglyConnectedComponents(int parallelism) {
+        return Components.strong(this, parallelism);
+    }
+
+    //кратчайшие расстояния и предшественники от start до всех вершин, многопоточный delta-stepping
+    //delta - ширина корзины: маленькая ближе к Дейкстре, большая даёт больше параллельной работы и повторных релаксаций
+    public ShortestPathTable<V> shortestPathsFrom(V start, int delta, int parallelism) {
+        if (delta <= 0) throw new GraphError("Ширина корзины должна быть положительной");
+        return ShortestPathTable.deltaStepping(this, requireId(start), delta, parallelism);
+    }
+
+    //то же с шириной корзины, подобранной по весам и средней степени
+    public ShortestPathTable<V> shortestPathsFrom(V start, int parallelism) {
+        return ShortestPathTable.deltaStepping(this, requireId(start), 0, parallelism);
+    }
+
+    //дерево кратчайших путей от start, которое достраивается лениво: каждый запрос продолжает Дейкстру
+    //только до запрошенной вершины
+    public ShortestPathTree<V> shortestPathTree(V start) {
+        return new ShortestPathTree<>(this, start);
+    }
+
+    //кеш таких деревьев по источникам, суммарно не больше budgetBytes байт
+    public ShortestPathTreeCache<V> shortestPathTrees(long budgetBytes) {
+        return new ShortestPathTreeCache<>(this, budgetBytes);
+    }
+
+    //посчитать суммарный вес пути
+    public int pathWeight(DynamicArray<V> path) {
+        int total = 0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            int from = requireId(path.get(i));
+            int to = requireId(path.get(i + 1));
+            int found = -1;
+            for (int e = offsets.get(from); e < offsets.get(from + 1); e++) {
+                if (targets.get(e) == to) {
+                    found = e;
+                    break;
+                }
+            }
+            if (found == -1) {
+                throw new GraphError("Не найдено ребро " +
+                        path.get(i) + " -> " + path.get(i + 1) + " при подсчёте длины пути");
+            }
+            total += weights.get(found);
+        }
+        return total;
+    }
+}
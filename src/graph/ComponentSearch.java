@@ -0,0 +1,281 @@
+package graph;
+import structures.IntDynamicArray;
+import java.util.Arrays;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+//поиск компонент связности и сильной связности над Csr, без рекурсии.
+//метки на выходе - произвольные числа меньше числа id, одинаковые у вершин одной компоненты;
+//нумерацию по порядку делает Components
+final class ComponentSearch {
+    private static final int GRAIN = 1 << 12;
+    private static final int SEQUENTIAL_LIMIT = 1 << 12; //множества меньше этого FW-BW отдаёт Tarjan
+    private static final int TRIM_ROUNDS = 3;
+    private static final int DONE = -1;                  //цвет вершины, компонента которой уже найдена
+
+    private ComponentSearch() {}
+
+    //компоненты связности (у ориентированного графа - слабой связности): параллельный union-find.
+    //корень всегда подвешивается к корню с меньшим id через CAS, поэтому потоки не портят друг другу дерево,
+    //поиск корня укорачивает путь вдвое (path halving)
+    static int[] connected(Csr out, ForkJoinPool pool) {
+        int n = out.size();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            for (int v = from; v < to; v++) parent.set(v, v);
+        });
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            for (int v = from; v < to; v++) {
+                for (int e = out.offsets[v]; e < out.offsets[v + 1]; e++) {
+                    int u = out.targets[e];
+                    //неориентированное ребро лежит в обоих списках, достаточно одного
+                    if (out.directed || v < u) union(parent, v, u);
+                }
+            }
+        });
+        int[] label = new int[n];
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            for (int v = from; v < to; v++) label[v] = find(parent, v);
+        });
+        return label;
+    }
+
+    private static int find(AtomicIntegerArray parent, int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) return x;
+            int gp = parent.get(p);
+            if (gp != p) parent.compareAndSet(x, p, gp);
+            x = gp;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) return;
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            //a мог перестать быть корнем, тогда повторяем
+            if (parent.compareAndSet(a, a, b)) return;
+        }
+    }
+
+    //общее состояние поиска сильных компонент, массивы по id
+    private static final class State {
+        final Csr out;
+        final Csr in;
+        final int[] color;  //множество, в котором сейчас лежит вершина
+        final int[] comp;
+        final int[] index;  //номер вершины в обходе Tarjan, -1 если не посещена
+        final int[] low;
+        final boolean[] onStack;
+        final AtomicInteger nextColor = new AtomicInteger(1);
+        final AtomicInteger nextComp = new AtomicInteger();
+
+        State(Csr out, Csr in) {
+            int n = out.size();
+            this.out = out;
+            this.in = in;
+            color = new int[n];
+            comp = new int[n];
+            index = new int[n];
+            Arrays.fill(index, -1);
+            low = new int[n];
+            onStack = new boolean[n];
+        }
+    }
+
+    //сильные компоненты одним потоком: Tarjan по всем вершинам
+    static int[] tarjan(Csr out) {
+        State s = new State(out, null);
+        int[] all = new int[out.size()];
+        for (int v = 0; v < all.length; v++) all[v] = v;
+        tarjan(s, all, 0);
+        return s.comp;
+    }
+
+    //Tarjan на явных стеках по вершинам members цвета c, рёбра в вершины других цветов не учитываются.
+    //стек вызовов - пары (вершина, следующее ребро), поэтому глубина графа не ограничена размером стека потока
+    private static void tarjan(State s, int[] members, int c) {
+        Csr out = s.out;
+        int counter = 0;
+        IntDynamicArray stack = new IntDynamicArray();
+        IntDynamicArray calls = new IntDynamicArray();
+        IntDynamicArray edges = new IntDynamicArray();
+        for (int root : members) {
+            if (s.color[root] != c || s.index[root] != -1) continue;
+            s.index[root] = s.low[root] = counter++;
+            stack.append(root);
+            s.onStack[root] = true;
+            calls.append(root);
+            edges.append(out.offsets[root]);
+            while (!calls.isEmpty()) {
+                int top = calls.size() - 1;
+                int v = calls.get(top);
+                int e = edges.get(top);
+                if (e < out.offsets[v + 1]) {
+                    edges.set(top, e + 1);
+                    int w = out.targets[e];
+                    if (s.color[w] != c) continue;
+                    if (s.index[w] == -1) {
+                        s.index[w] = s.low[w] = counter++;
+                        stack.append(w);
+                        s.onStack[w] = true;
+                        calls.append(w);
+                        edges.append(out.offsets[w]);
+                    } else if (s.onStack[w]) {
+                        s.low[v] = Math.min(s.low[v], s.index[w]);
+                    }
+                    continue;
+                }
+                //все рёбра v просмотрены - возврат из v
+                calls.removeLast();
+                edges.removeLast();
+                if (!calls.isEmpty()) {
+                    int parent = calls.last();
+                    s.low[parent] = Math.min(s.low[parent], s.low[v]);
+                }
+                if (s.low[v] == s.index[v]) {
+                    int id = s.nextComp.getAndIncrement();
+                    int w;
+                    do {
+                        w = stack.removeLast();
+                        s.onStack[w] = false;
+                        s.comp[w] = id;
+                        s.color[w] = DONE;
+                    } while (w != v);
+                }
+            }
+        }
+    }
+
+    //сильные компоненты многопоточно: сначала отсекаются вершины без входящих или исходящих рёбер
+    //(каждая - отдельная компонента), остальное делит forward-backward: от случайной опорной вершины
+    //компонента - пересечение достижимых вперёд и назад, а три оставшихся куска независимы и разбираются параллельно
+    static int[] forwardBackward(Csr out, ForkJoinPool pool) {
+        State s = new State(out, out.reverse());
+        int n = out.size();
+        for (int round = 0; round < TRIM_ROUNDS; round++) {
+            AtomicInteger trimmed = new AtomicInteger();
+            Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+                int count = 0;
+                for (int v = from; v < to; v++) {
+                    if (s.color[v] == 0 && (!hasLive(s.out, s.color, v) || !hasLive(s.in, s.color, v))) {
+                        s.comp[v] = s.nextComp.getAndIncrement();
+                        s.color[v] = DONE;
+                        count++;
+                    }
+                }
+                trimmed.addAndGet(count);
+            });
+            if (trimmed.get() == 0) break;
+        }
+        IntDynamicArray[] parts = new IntDynamicArray[Parallel.chunks(n, GRAIN)];
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            IntDynamicArray part = new IntDynamicArray();
+            for (int v = from; v < to; v++) if (s.color[v] == 0) part.append(v);
+            parts[chunk] = part;
+        });
+        for (int i = 0; i < parts.length; i++) if (parts[i] == null) parts[i] = new IntDynamicArray();
+        int[] rest = Parallel.concat(parts);
+        if (rest.length > 0) pool.invoke(new SplitTask(null, s, rest, 0));
+        return s.comp;
+    }
+
+    //есть ли у v ребро в ещё не разобранную вершину, кроме петли
+    private static boolean hasLive(Csr g, int[] color, int v) {
+        for (int e = g.offsets[v]; e < g.offsets[v + 1]; e++) {
+            int w = g.targets[e];
+            if (w != v && color[w] != DONE) return true;
+        }
+        return false;
+    }
+
+    //задача на множество вершин цвета color; дочерние задачи не ждут друг друга (CountedCompleter),
+    //поэтому глубина разбиения не растит стек потоков
+    private static final class SplitTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+        private final State s;
+        private final int[] members;
+        private final int color;
+
+        SplitTask(CountedCompleter<?> parent, State s, int[] members, int color) {
+            super(parent);
+            this.s = s;
+            this.members = members;
+            this.color = color;
+        }
+
+        @Override
+        public void compute() {
+            if (members.length <= SEQUENTIAL_LIMIT) {
+                tarjan(s, members, color);
+                tryComplete();
+                return;
+            }
+            int[] colors = s.color;
+            int pivot = members[ThreadLocalRandom.current().nextInt(members.length)];
+            int forward = s.nextColor.getAndIncrement();
+            int backward = s.nextColor.getAndIncrement();
+            //вперёд от опорной вершины внутри множества
+            IntDynamicArray queue = new IntDynamicArray();
+            colors[pivot] = forward;
+            queue.append(pivot);
+            for (int head = 0; head < queue.size(); head++) {
+                int v = queue.get(head);
+                for (int e = s.out.offsets[v]; e < s.out.offsets[v + 1]; e++) {
+                    int w = s.out.targets[e];
+                    if (colors[w] == color) {
+                        colors[w] = forward;
+                        queue.append(w);
+                    }
+                }
+            }
+            //назад: достигнутые и вперёд, и назад - компонента опорной вершины
+            int id = s.nextComp.getAndIncrement();
+            queue.clear();
+            colors[pivot] = DONE;
+            s.comp[pivot] = id;
+            queue.append(pivot);
+            for (int head = 0; head < queue.size(); head++) {
+                int v = queue.get(head);
+                for (int e = s.in.offsets[v]; e < s.in.offsets[v + 1]; e++) {
+                    int w = s.in.targets[e];
+                    if (colors[w] == forward) {
+                        colors[w] = DONE;
+                        s.comp[w] = id;
+                        queue.append(w);
+                    } else if (colors[w] == color) {
+                        colors[w] = backward;
+                        queue.append(w);
+                    }
+                }
+            }
+            IntDynamicArray onlyForward = new IntDynamicArray();
+            IntDynamicArray onlyBackward = new IntDynamicArray();
+            IntDynamicArray neither = new IntDynamicArray();
+            for (int v : members) {
+                if (colors[v] == forward) onlyForward.append(v);
+                else if (colors[v] == backward) onlyBackward.append(v);
+                else if (colors[v] == color) neither.append(v);
+            }
+            fork(onlyForward, forward);
+            fork(onlyBackward, backward);
+            fork(neither, color);
+            tryComplete();
+        }
+
+        private void fork(IntDynamicArray part, int partColor) {
+            if (part.isEmpty()) return;
+            addToPendingCount(1);
+            new SplitTask(this, s, part.toArray(), partColor).fork();
+        }
+    }
+}
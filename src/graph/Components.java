@@ -0,0 +1,124 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+//разбиение вершин графа на компоненты: номер компоненты у каждого id и размеры компонент
+//компоненты пронумерованы 0..count()-1 в порядке наименьшего id вершины в них.
+//результат относится к графу на момент расчёта, после изменения графа его нужно пересчитать
+public class Components<V> {
+    private final IndexedGraph<V> graph;
+    private final int[] label; //id -> номер компоненты, -1 у свободных id
+    private final int[] size;  //номер компоненты -> число вершин
+
+    private Components(IndexedGraph<V> graph, int[] label, int[] size) {
+        this.graph = graph;
+        this.label = label;
+        this.size = size;
+    }
+
+    //компоненты связности, у ориентированного графа - слабой связности (направление рёбер не учитывается)
+    static <V> Components<V> connected(IndexedGraph<V> g, int parallelism) {
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return of(g, ComponentSearch.connected(Csr.of(g, pool), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //компоненты сильной связности: один поток - Tarjan, несколько - forward-backward
+    //у неориентированного графа совпадают с компонентами связности
+    static <V> Components<V> strong(IndexedGraph<V> g, int parallelism) {
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Csr out = Csr.of(g, pool);
+            if (!g.isDirected()) return of(g, ComponentSearch.connected(out, pool));
+            return of(g, parallelism == 1 ? ComponentSearch.tarjan(out) : ComponentSearch.forwardBackward(out, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //перенумеровать метки по порядку id и посчитать размеры, свободные id получают -1
+    private static <V> Components<V> of(IndexedGraph<V> g, int[] raw) {
+        int[] rename = new int[raw.length];
+        Arrays.fill(rename, -1);
+        int[] label = new int[raw.length];
+        int[] size = new int[Math.max(1, g.vertexCount())];
+        int count = 0;
+        for (int id = 0; id < raw.length; id++) {
+            if (g.vertexAt(id) == null) {
+                label[id] = -1;
+                continue;
+            }
+            int r = raw[id];
+            if (rename[r] == -1) rename[r] = count++;
+            label[id] = rename[r];
+            size[label[id]]++;
+        }
+        return new Components<>(g, label, Arrays.copyOf(size, count));
+    }
+
+    private int ensureVertexExists(V v) {
+        int id = graph.idOf(v);
+        if (id == -1 || id >= label.length) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    private void checkComponent(int component) {
+        if (component < 0 || component >= size.length) {
+            throw new GraphError("Компоненты " + component + " нет, всего компонент " + size.length);
+        }
+    }
+
+    public int count() {
+        return size.length;
+    }
+
+    public int componentOf(V v) {
+        return label[ensureVertexExists(v)];
+    }
+
+    public boolean sameComponent(V a, V b) {
+        return componentOf(a) == componentOf(b);
+    }
+
+    public int size(int component) {
+        checkComponent(component);
+        return size[component];
+    }
+
+    //номер самой большой компоненты, -1 если граф пуст
+    public int largest() {
+        int best = -1;
+        for (int c = 0; c < size.length; c++) {
+            if (best == -1 || size[c] > size[best]) best = c;
+        }
+        return best;
+    }
+
+    //вершины компоненты в порядке id, O(число id)
+    public DynamicArray<V> members(int component) {
+        checkComponent(component);
+        DynamicArray<V> result = new DynamicArray<>(Math.max(1, size[component]));
+        for (int id = 0; id < label.length; id++) {
+            if (label[id] == component) result.append(graph.vertexAt(id));
+        }
+        return result;
+    }
+
+    //копия массива id -> номер компоненты (-1 у свободных id)
+    public int[] labels() {
+        return label.clone();
+    }
+
+    //копия массива номер компоненты -> размер
+    public int[] sizes() {
+        return size.clone();
+    }
+}
@@ -0,0 +1,470 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.HashMap;
+import structures.IndexedHeap;
+import structures.IntDoubleHashMap;
+import structures.IntDynamicArray;
+import structures.IntIntHashMap;
+import structures.Queue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+//потокобезопасный граф для смешанной нагрузки чтение/запись
+//вершины разложены по STRIPES полосам, у каждой своя хеш-таблица и свой ReentrantReadWriteLock,
+//поэтому писатели в разные полосы не мешают друг другу.
+//рёбра вершины хранятся в неизменяемом массиве (copy-on-write): писатель под блокировкой подменяет массив целиком,
+//читатель берёт ссылку на текущий массив и идёт по нему без блокировок.
+//
+//согласованность чтения:
+//edgesFrom, getAdjacent, incomingEdges - снимок рёбер вершины на момент вызова;
+//vertices - слабо согласованный обход: каждая полоса копируется атомарно, но вершины, добавленные или
+//удалённые во время обхода в ещё не пройденных полосах, могут как попасть, так и не попасть в результат;
+//bfsOrder, dfsOrder, shortestPath тоже слабо согласованы: рёбра каждой вершины читаются одним снимком в момент
+//её обработки, вершины, удалённые во время обхода, пропускаются
+public class ConcurrentGraph<V> {
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private final boolean directed;
+    private final Stripe<V>[] stripes;
+    private final AtomicInteger nextNodeId = new AtomicInteger();
+
+    //ребро внутри графа сразу ссылается на узел конца, чтобы обход не ходил в хеш-таблицы
+    private static final class Arc<V> {
+        final Node<V> to;
+        final int weight;
+
+        Arc(Node<V> to, int weight) {
+            this.to = to;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Node<V> {
+        final V vertex;
+        final int id;                 //уникальный номер узла, не переиспользуется
+        volatile Arc<V>[] out;
+        volatile Arc<V>[] in;         //входящие рёбра (to - источник), только в ориентированном графе
+        volatile boolean removed;
+
+        Node(V vertex, int id) {
+            this.vertex = vertex;
+            this.id = id;
+            this.out = emptyArcs();
+            this.in = emptyArcs();
+        }
+    }
+
+    private static final class Stripe<V> {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final HashMap<V, Node<V>> nodes = new HashMap<>();
+    }
+
+    public ConcurrentGraph(boolean directed) {
+        this.directed = directed;
+        this.stripes = newStripes(STRIPES);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe<>();
+    }
+
+    public ConcurrentGraph() {
+        this(true); } //по умолчанию ориентированный
+
+    public boolean isDirected() {
+        return directed; }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Stripe<V>[] newStripes(int count) {
+        return (Stripe<V>[]) new Stripe<?>[count];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Arc<V>[] emptyArcs() {
+        return (Arc<V>[]) new Arc<?>[0];
+    }
+
+    //полоса - старшие биты перемешанного хеша: таблица полосы выбирает ячейку по младшим битам того же
+    //перемешивания, и если бы полоса тоже бралась из них, все ключи полосы попадали бы в 1/STRIPES её ячеек
+    private int stripeOf(V v) {
+        if (v == null) throw new GraphError("Вершина не может быть пустой");
+        return (v.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - STRIPE_BITS);
+    }
+
+    //узел вершины или null, под блокировкой чтения своей полосы
+    private Node<V> node(V v) {
+        Stripe<V> stripe = stripes[stripeOf(v)];
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.nodes.tryGet(v);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    private Node<V> ensureVertexExists(V v) {
+        Node<V> node = node(v);
+        if (node == null) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return node;
+    }
+
+    //блокировки двух полос всегда берём по возрастанию номера, чтобы не было взаимной блокировки
+    private void lockPair(int a, int b) {
+        stripes[Math.min(a, b)].lock.writeLock().lock();
+        if (a != b) stripes[Math.max(a, b)].lock.writeLock().lock();
+    }
+
+    private void unlockPair(int a, int b) {
+        if (a != b) stripes[Math.max(a, b)].lock.writeLock().unlock();
+        stripes[Math.min(a, b)].lock.writeLock().unlock();
+    }
+
+    private void lockAll() {
+        for (Stripe<V> stripe : stripes) stripe.lock.writeLock().lock();
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) stripes[i].lock.writeLock().unlock();
+    }
+
+    public boolean containsVertex(V v) {
+        return node(v) != null; }
+
+    public int vertexCount() {
+        int count = 0;
+        for (Stripe<V> stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                count += stripe.nodes.size();
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return count;
+    }
+
+    public void addVertex(V v) {
+        Stripe<V> stripe = stripes[stripeOf(v)];
+        stripe.lock.writeLock().lock();
+        try {
+            if (stripe.nodes.containsKey(v)) throw new GraphError("Вершина '" + v + "' уже существует");
+            stripe.nodes.put(v, new Node<>(v, nextNodeId.getAndIncrement()));
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    //вызывается под блокировкой записи полосы вершины
+    private Node<V> getOrCreate(V v) {
+        Stripe<V> stripe = stripes[stripeOf(v)];
+        Node<V> node = stripe.nodes.tryGet(v);
+        if (node == null) {
+            node = new Node<>(v, nextNodeId.getAndIncrement());
+            stripe.nodes.put(v, node);
+        }
+        return node;
+    }
+
+    private static <V> int indexOf(Arc<V>[] arcs, Node<V> to) {
+        for (int i = 0; i < arcs.length; i++) {
+            if (arcs[i].to == to) return i;
+        }
+        return -1;
+    }
+
+    private static <V> Arc<V>[] with(Arc<V>[] arcs, Arc<V> arc) {
+        Arc<V>[] copy = Arrays.copyOf(arcs, arcs.length + 1);
+        copy[arcs.length] = arc;
+        return copy;
+    }
+
+    //копия без ребра в to, или null если такого ребра нет
+    private static <V> Arc<V>[] without(Arc<V>[] arcs, Node<V> to) {
+        int i = indexOf(arcs, to);
+        if (i == -1) return null;
+        Arc<V>[] copy = Arrays.copyOf(arcs, arcs.length - 1);
+        System.arraycopy(arcs, i + 1, copy, i, arcs.length - i - 1);
+        return copy;
+    }
+
+    public void addEdge(V from, V to, int weight) {
+        if (weight < 0) throw new GraphError("Вес не может быть отрицательным");
+        int a = stripeOf(from);
+        int b = stripeOf(to);
+        lockPair(a, b);
+        try {
+            //автоматически создаем вершины, если их нет
+            Node<V> u = getOrCreate(from);
+            Node<V> v = getOrCreate(to);
+            if (indexOf(u.out, v) != -1) throw new GraphError("Ребро уже есть");
+            u.out = with(u.out, new Arc<>(v, weight));
+            if (directed) {
+                v.in = with(v.in, new Arc<>(u, weight));
+            } else if (u != v) {
+                v.out = with(v.out, new Arc<>(u, weight));
+            }
+        } finally {
+            unlockPair(a, b);
+        }
+    }
+
+    public void removeEdge(V from, V to) {
+        int a = stripeOf(from);
+        int b = stripeOf(to);
+        lockPair(a, b);
+        try {
+            Node<V> u = stripes[a].nodes.tryGet(from);
+            Node<V> v = stripes[b].nodes.tryGet(to);
+            if (u == null) throw new GraphError("Вершина '" + from + "' не существует в графе");
+            if (v == null) throw new GraphError("Вершина '" + to + "' не существует в графе");
+            Arc<V>[] out = without(u.out, v);
+            if (out == null) throw new GraphError("Ребро '" + from + "' -> '" + to + "' не найдено в графе");
+            u.out = out;
+            if (directed) {
+                v.in = without(v.in, u);
+            } else if (u != v) {
+                v.out = without(v.out, u);
+            }
+        } finally {
+            unlockPair(a, b);
+        }
+    }
+
+    //удаление вершины трогает полосы всех соседей, поэтому берёт блокировки всех полос по порядку
+    public void removeVertex(V v) {
+        lockAll();
+        try {
+            Node<V> node = stripes[stripeOf(v)].nodes.tryGet(v);
+            if (node == null) throw new GraphError("Вершина '" + v + "' не существует в графе");
+            for (Arc<V> arc : directed ? node.in : node.out) {
+                if (arc.to != node) arc.to.out = without(arc.to.out, node);
+            }
+            if (directed) {
+                for (Arc<V> arc : node.out) {
+                    if (arc.to != node) arc.to.in = without(arc.to.in, node);
+                }
+            }
+            node.removed = true;
+            node.out = emptyArcs();
+            node.in = emptyArcs();
+            stripes[stripeOf(v)].nodes.remove(v);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private static <V> DynamicArray<Edge<V>> toEdges(Arc<V>[] arcs) {
+        DynamicArray<Edge<V>> edges = new DynamicArray<>(Math.max(1, arcs.length));
+        for (Arc<V> arc : arcs) {
+            edges.append(new Edge<>(arc.to.vertex, arc.weight));
+        }
+        return edges;
+    }
+
+    //снимок исходящих рёбер
+    public DynamicArray<Edge<V>> edgesFrom(V v) {
+        return toEdges(ensureVertexExists(v).out);
+    }
+
+    //снимок входящих рёбер, getTo() - вершина-источник
+    public DynamicArray<Edge<V>> incomingEdges(V v) {
+        Node<V> node = ensureVertexExists(v);
+        return toEdges(directed ? node.in : node.out);
+    }
+
+    public boolean hasEdge(V from, V to) {
+        Node<V> u = node(from);
+        Node<V> v = node(to);
+        return u != null && v != null && indexOf(u.out, v) != -1;
+    }
+
+    //получить список соседей вершины
+    public DynamicArray<V> getAdjacent(V v) {
+        Arc<V>[] arcs = ensureVertexExists(v).out;
+        DynamicArray<V> result = new DynamicArray<>(Math.max(1, arcs.length));
+        for (Arc<V> arc : arcs) {
+            result.append(arc.to.vertex);
+        }
+        return result;
+    }
+
+    //слабо согласованный обход вершин, см. комментарий к классу
+    public Iterable<V> vertices() {
+        return () -> new Iterator<V>() {
+            private int stripe = 0;
+            private DynamicArray<V> current = new DynamicArray<>();
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (index >= current.size()) {
+                    if (stripe == STRIPES) return false;
+                    current = copyKeys(stripes[stripe++]);
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет вершин");
+                }
+                return current.get(index++);
+            }
+        };
+    }
+
+    private DynamicArray<V> copyKeys(Stripe<V> stripe) {
+        stripe.lock.readLock().lock();
+        try {
+            DynamicArray<V> keys = new DynamicArray<>(Math.max(1, stripe.nodes.size()));
+            for (V v : stripe.nodes.keys()) keys.append(v);
+            return keys;
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    //вершины обхода по порядку. если вершину удалили и добавили заново во время обхода, он мог пройти и старый,
+    //и новый узел. у старого к концу обхода уже стоит removed, поэтому, если удалённых узлов нет, повторов нет,
+    //а иначе удалённые узлы пропускаем и оставляем только первое появление каждой вершины
+    private DynamicArray<V> vertexOrder(DynamicArray<Node<V>> nodes) {
+        boolean anyRemoved = false;
+        for (Node<V> node : nodes) anyRemoved |= node.removed;
+        DynamicArray<V> order = new DynamicArray<>(Math.max(1, nodes.size()));
+        HashMap<V, Boolean> seen = anyRemoved ? new HashMap<>() : null;
+        for (Node<V> node : nodes) {
+            if (seen != null) {
+                if (node.removed || seen.containsKey(node.vertex)) continue;
+                seen.put(node.vertex, true);
+            }
+            order.append(node.vertex);
+        }
+        return order;
+    }
+
+    //DFS без блокировок, по снимкам рёбер
+    public DynamicArray<V> dfsOrder(V start) {
+        Node<V> s = ensureVertexExists(start);
+        IntIntHashMap visited = new IntIntHashMap();
+        DynamicArray<Node<V>> order = new DynamicArray<>();
+        DynamicArray<Node<V>> stack = new DynamicArray<>();
+        stack.append(s);
+        while (!stack.isEmpty()) {
+            Node<V> v = stack.removeAt(stack.size() - 1);
+            if (v.removed || visited.containsKey(v.id)) {
+                continue;
+            }
+            visited.put(v.id, 1);
+            order.append(v);
+            Arc<V>[] arcs = v.out;
+            for (int i = arcs.length - 1; i >= 0; i--) {
+                if (!visited.containsKey(arcs[i].to.id)) {
+                    stack.append(arcs[i].to);
+                }
+            }
+        }
+        return vertexOrder(order);
+    }
+
+    //BFS без блокировок, по снимкам рёбер
+    public DynamicArray<V> bfsOrder(V start) {
+        Node<V> s = ensureVertexExists(start);
+        IntIntHashMap visited = new IntIntHashMap();
+        DynamicArray<Node<V>> order = new DynamicArray<>();
+        Queue<Node<V>> queue = new Queue<>();
+        visited.put(s.id, 1);
+        queue.enqueue(s);
+        while (!queue.isEmpty()) {
+            Node<V> v = queue.dequeue();
+            if (v.removed) {
+                continue;
+            }
+            order.append(v);
+            for (Arc<V> arc : v.out) {
+                if (!visited.containsKey(arc.to.id)) {
+                    visited.put(arc.to.id, 1);
+                    queue.enqueue(arc.to);
+                }
+            }
+        }
+        return vertexOrder(order);
+    }
+
+    //Дейкстра без блокировок, узлы нумеруются локально по мере открытия
+    public DynamicArray<V> shortestPath(V start, V goal) {
+        Node<V> s = ensureVertexExists(start);
+        Node<V> g = ensureVertexExists(goal);
+        IntIntHashMap local = new IntIntHashMap();        //id узла -> локальный номер
+        DynamicArray<Node<V>> nodes = new DynamicArray<>();
+        IntDoubleHashMap dist = new IntDoubleHashMap();
+        IntIntHashMap prev = new IntIntHashMap();
+        IndexedHeap heap = new IndexedHeap();
+        local.put(s.id, 0);
+        nodes.append(s);
+        dist.put(0, 0.0);
+        heap.offer(0, 0.0);
+        int goalIndex = -1;
+        while (!heap.isEmpty()) {
+            int vi = heap.pollMin();
+            Node<V> v = nodes.get(vi);
+            if (v == g) {
+                goalIndex = vi;
+                break;
+            }
+            if (v.removed) continue;
+            double dv = dist.get(vi);
+            for (Arc<V> arc : v.out) {
+                int ui = local.getOrDefault(arc.to.id, -1);
+                if (ui == -1) {
+                    ui = nodes.size();
+                    local.put(arc.to.id, ui);
+                    nodes.append(arc.to);
+                }
+                double alt = dv + arc.weight;
+                if (alt < dist.getOrDefault(ui, Double.POSITIVE_INFINITY)) {
+                    dist.put(ui, alt);
+                    prev.put(ui, vi);
+                    heap.offer(ui, alt);
+                }
+            }
+        }
+        if (goalIndex == -1) {
+            throw new GraphError(
+                    "Кратчайший путь от '" + start + "' до '" + goal + "' не существует"
+            );
+        }
+        IntDynamicArray reversed = new IntDynamicArray();
+        for (int cur = goalIndex; cur != 0; cur = prev.get(cur)) {
+            reversed.append(cur);
+        }
+        reversed.append(0);
+        DynamicArray<V> path = new DynamicArray<>(reversed.size());
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            path.append(nodes.get(reversed.get(i)).vertex);
+        }
+        return path;
+    }
+
+    //посчитать суммарный вес пути по текущему состоянию графа
+    public int pathWeight(DynamicArray<V> path) {
+        int total = 0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            V from = path.get(i);
+            V to = path.get(i + 1);
+            Node<V> u = ensureVertexExists(from);
+            Node<V> v = node(to);
+            Arc<V>[] arcs = u.out;
+            int k = v == null ? -1 : indexOf(arcs, v);
+            if (k == -1) {
+                throw new GraphError("Не найдено ребро " +
+                        from + " -> " + to + " при подсчёте длины пути");
+            }
+            total += arcs[k].weight;
+        }
+        return total;
+    }
+}
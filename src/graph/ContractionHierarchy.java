@@ -0,0 +1,346 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.IndexedHeap;
+import structures.IntDoubleHashMap;
+import structures.IntDynamicArray;
+import structures.IntIntHashMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+//индекс Contraction Hierarchies над CompactGraph для быстрых запросов кратчайшего пути
+//у каждой вершины есть ранг (порядок стягивания), рёбра вверх ведут к вершинам с большим рангом, рёбра вниз приходят от них.
+//запрос - двусторонняя Дейкстра, где обе стороны идут только вверх, поэтому каждая просматривает малую часть графа.
+//ярлыки в найденном пути раскрываются обратно в исходные рёбра.
+//id вершин совпадают с id CompactGraph, индекс неизменяемый, запросы можно выполнять из разных потоков
+public class ContractionHierarchy<V> {
+    static final int MAGIC = 0x58494843; //"CHIX"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+
+    private final CompactGraph<V> graph;
+    private final int[] rank;
+    //рёбра вверх: v -> upTargets[k], k в [upOffsets[v], upOffsets[v + 1])
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final long[] upWeights;
+    private final int[] upMiddle;  //стянутая вершина ярлыка, -1 у исходного ребра
+    //рёбра вниз: downTargets[k] -> v, начало ребра выше v по рангу
+    private final int[] downOffsets;
+    private final int[] downTargets;
+    private final long[] downWeights;
+    private final int[] downMiddle;
+
+    private ContractionHierarchy(CompactGraph<V> graph, int[] rank,
+                                 int[] upOffsets, int[] upTargets, long[] upWeights, int[] upMiddle,
+                                 int[] downOffsets, int[] downTargets, long[] downWeights, int[] downMiddle) {
+        this.graph = graph;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddle = upMiddle;
+        this.downOffsets = downOffsets;
+        this.downTargets = downTargets;
+        this.downWeights = downWeights;
+        this.downMiddle = downMiddle;
+    }
+
+    //предобработка, время зависит от структуры графа: на дорожных графах почти линейное
+    static <V> ContractionHierarchy<V> build(CompactGraph<V> graph) {
+        HierarchyBuilder builder = new HierarchyBuilder(graph);
+        builder.build();
+        int n = graph.vertexCount();
+        int[] upOffsets = new int[n + 1];
+        int[] downOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] = upOffsets[v] + builder.up[v].size;
+            downOffsets[v + 1] = downOffsets[v] + builder.down[v].size;
+        }
+        int[] upTargets = new int[upOffsets[n]];
+        long[] upWeights = new long[upOffsets[n]];
+        int[] upMiddle = new int[upOffsets[n]];
+        int[] downTargets = new int[downOffsets[n]];
+        long[] downWeights = new long[downOffsets[n]];
+        int[] downMiddle = new int[downOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            copy(builder.up[v], upOffsets[v], upTargets, upWeights, upMiddle);
+            copy(builder.down[v], downOffsets[v], downTargets, downWeights, downMiddle);
+        }
+        return new ContractionHierarchy<>(graph, builder.rank, upOffsets, upTargets, upWeights, upMiddle,
+                downOffsets, downTargets, downWeights, downMiddle);
+    }
+
+    private static void copy(HierarchyBuilder.ArcList arcs, int at, int[] targets, long[] weights, int[] middle) {
+        System.arraycopy(arcs.to, 0, targets, at, arcs.size);
+        System.arraycopy(arcs.weight, 0, weights, at, arcs.size);
+        System.arraycopy(arcs.middle, 0, middle, at, arcs.size);
+    }
+
+    public CompactGraph<V> graph() {
+        return graph;
+    }
+
+    //сколько рёбер в иерархии сверх исходных
+    public int shortcutCount() {
+        int count = 0;
+        for (int mid : upMiddle) if (mid != -1) count++;
+        for (int mid : downMiddle) if (mid != -1) count++;
+        return graph.isDirected() ? count : count / 2;
+    }
+
+    private int requireId(V v) {
+        int id = graph.idOf(v);
+        if (id == -1) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    //состояние одной стороны запроса
+    private static final class Side {
+        final IntDoubleHashMap dist = new IntDoubleHashMap();
+        final IntIntHashMap arc = new IntIntHashMap(); //вершина -> ребро иерархии, по которому в неё пришли
+        final IndexedHeap heap = new IndexedHeap();
+        final int[] offsets;
+        final int[] targets;
+        final long[] weights;
+
+        Side(int source, int[] offsets, int[] targets, long[] weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            dist.put(source, 0.0);
+            heap.offer(source, 0.0);
+        }
+
+        double top() {
+            return heap.isEmpty() ? Double.POSITIVE_INFINITY : heap.priorityOf(heap.peekMin());
+        }
+
+        int settle() {
+            int v = heap.pollMin();
+            double dv = dist.get(v);
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int u = targets[k];
+                double alt = dv + weights[k];
+                if (alt < dist.getOrDefault(u, Double.POSITIVE_INFINITY)) {
+                    dist.put(u, alt);
+                    arc.put(u, k);
+                    heap.offer(u, alt);
+                }
+            }
+            return v;
+        }
+    }
+
+    //кратчайший путь в исходном графе, GraphError если пути нет
+    public DynamicArray<V> shortestPath(V start, V goal) {
+        return shortestPath(start, goal, null);
+    }
+
+    public DynamicArray<V> shortestPath(V start, V goal, SearchStats stats) {
+        int s = requireId(start);
+        int t = requireId(goal);
+        Side forward = new Side(s, upOffsets, upTargets, upWeights);
+        Side backward = new Side(t, downOffsets, downTargets, downWeights);
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        //сторона заканчивает, когда её минимум не меньше лучшего пути
+        while (Math.min(forward.top(), backward.top()) < best) {
+            boolean forwardStep = forward.top() <= backward.top();
+            Side side = forwardStep ? forward : backward;
+            Side other = forwardStep ? backward : forward;
+            int v = side.settle();
+            if (stats != null) stats.settled++;
+            double through = side.dist.get(v) + other.dist.getOrDefault(v, Double.POSITIVE_INFINITY);
+            if (through < best) {
+                best = through;
+                meet = v;
+            }
+        }
+        if (meet == -1) {
+            throw new GraphError("Кратчайший путь от '" + start + "' до '" + goal + "' не существует");
+        }
+        //вверх от start до meet, затем вниз до goal, каждое ребро иерархии раскрываем
+        IntDynamicArray climb = new IntDynamicArray();
+        for (int v = meet; v != s; v = upSource(forward.arc.get(v))) climb.append(forward.arc.get(v));
+        IntDynamicArray ids = new IntDynamicArray();
+        ids.append(s);
+        for (int i = climb.size() - 1; i >= 0; i--) {
+            int k = climb.get(i);
+            unpack(upSource(k), upTargets[k], upMiddle[k], ids);
+        }
+        for (int v = meet; v != t; ) {
+            int k = backward.arc.get(v);
+            int below = downTarget(k);
+            unpack(v, below, downMiddle[k], ids);
+            v = below;
+        }
+        DynamicArray<V> path = new DynamicArray<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) path.append(graph.vertexAt(ids.get(i)));
+        return path;
+    }
+
+    //длина кратчайшего пути или -1, если пути нет
+    public long distance(V start, V goal) {
+        int s = requireId(start);
+        int t = requireId(goal);
+        Side forward = new Side(s, upOffsets, upTargets, upWeights);
+        Side backward = new Side(t, downOffsets, downTargets, downWeights);
+        double best = Double.POSITIVE_INFINITY;
+        while (Math.min(forward.top(), backward.top()) < best) {
+            boolean forwardStep = forward.top() <= backward.top();
+            Side side = forwardStep ? forward : backward;
+            Side other = forwardStep ? backward : forward;
+            int v = side.settle();
+            best = Math.min(best, side.dist.get(v) + other.dist.getOrDefault(v, Double.POSITIVE_INFINITY));
+        }
+        return best == Double.POSITIVE_INFINITY ? -1 : (long) best;
+    }
+
+    //вершина, которой принадлежит ребро вверх k (бинарный поиск по offsets)
+    private int upSource(int k) {
+        return owner(upOffsets, k);
+    }
+
+    //вершина, в которую приходит ребро вниз k
+    private int downTarget(int k) {
+        return owner(downOffsets, k);
+    }
+
+    private static int owner(int[] offsets, int k) {
+        int lo = 0;
+        int hi = offsets.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= k) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    //дописать в ids вершины ребра from -> to без from, раскрывая ярлыки через стек
+    //ярлык from -> to через mid состоит из ребра from -> mid (вниз у mid) и mid -> to (вверх у mid)
+    private void unpack(int from, int to, int middle, IntDynamicArray ids) {
+        IntDynamicArray stack = new IntDynamicArray();
+        stack.append(from);
+        stack.append(to);
+        stack.append(middle);
+        while (!stack.isEmpty()) {
+            int mid = stack.removeLast();
+            int b = stack.removeLast();
+            int a = stack.removeLast();
+            if (mid == -1) {
+                ids.append(b);
+                continue;
+            }
+            int right = find(upOffsets, upTargets, mid, b);
+            int left = find(downOffsets, downTargets, mid, a);
+            stack.append(mid);
+            stack.append(b);
+            stack.append(upMiddle[right]);
+            stack.append(a);
+            stack.append(mid);
+            stack.append(downMiddle[left]);
+        }
+    }
+
+    private static int find(int[] offsets, int[] targets, int v, int target) {
+        for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+            if (targets[k] == target) return k;
+        }
+        throw new GraphError("Повреждён индекс: нет ребра между " + v + " и " + target);
+    }
+
+    //контрольная сумма графа, по ней при загрузке проверяется, что индекс построен для этого графа
+    private static long fingerprint(CompactGraph<?> graph) {
+        long h = graph.isDirected() ? 1 : 0;
+        h = h * 31 + graph.vertexCount();
+        for (int v = 0; v < graph.vertexCount(); v++) h = h * 31 + graph.firstEdge(v);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            h = h * 31 + graph.target(e);
+            h = h * 31 + graph.weight(e);
+        }
+        return h;
+    }
+
+    //формат файла, числа little-endian:
+    //заголовок  magic, version, n, m, upCount, downCount, fingerprint (long), 0 x4
+    //rank int[n], upOffsets int[n + 1], upTargets int[up], upMiddle int[up], upWeights long[up],
+    //затем то же для рёбер вниз
+    void save(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryGraphFormat.IntWriter out = new BinaryGraphFormat.IntWriter(channel);
+            out.put(MAGIC);
+            out.put(VERSION);
+            out.put(rank.length);
+            out.put(graph.edgeCount());
+            out.put(upTargets.length);
+            out.put(downTargets.length);
+            out.put(fingerprint(graph));
+            for (int i = 0; i < 4; i++) out.put(0);
+            for (int r : rank) out.put(r);
+            for (int x : upOffsets) out.put(x);
+            for (int x : upTargets) out.put(x);
+            for (int x : upMiddle) out.put(x);
+            for (long x : upWeights) out.put(x);
+            for (int x : downOffsets) out.put(x);
+            for (int x : downTargets) out.put(x);
+            for (int x : downMiddle) out.put(x);
+            for (long x : downWeights) out.put(x);
+            out.flush();
+        }
+    }
+
+    static <V> ContractionHierarchy<V> load(String filename, CompactGraph<V> graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new GraphError("Файл слишком короткий для индекса");
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt() != MAGIC) throw new GraphError("Файл не является индексом кратчайших путей");
+            int version = buf.getInt();
+            if (version != VERSION) throw new GraphError("Неподдерживаемая версия индекса: " + version);
+            int n = buf.getInt();
+            int m = buf.getInt();
+            int up = buf.getInt();
+            int down = buf.getInt();
+            long fingerprint = buf.getLong();
+            if (n != graph.vertexCount() || m != graph.edgeCount() || fingerprint != fingerprint(graph)) {
+                throw new GraphError("Индекс построен для другого графа");
+            }
+            if (up < 0 || down < 0 || channel.size() != HEADER_BYTES + 4L * (3 * n + 2) + 16L * (up + down)) {
+                throw new GraphError("Индекс повреждён или обрезан");
+            }
+            buf.position(HEADER_BYTES);
+            int[] rank = ints(buf, n);
+            int[] upOffsets = ints(buf, n + 1);
+            int[] upTargets = ints(buf, up);
+            int[] upMiddle = ints(buf, up);
+            long[] upWeights = longs(buf, up);
+            int[] downOffsets = ints(buf, n + 1);
+            int[] downTargets = ints(buf, down);
+            int[] downMiddle = ints(buf, down);
+            long[] downWeights = longs(buf, down);
+            return new ContractionHierarchy<>(graph, rank, upOffsets, upTargets, upWeights, upMiddle,
+                    downOffsets, downTargets, downWeights, downMiddle);
+        }
+    }
+
+    private static int[] ints(ByteBuffer buf, int count) {
+        int[] result = new int[count];
+        buf.asIntBuffer().get(result);
+        buf.position(buf.position() + 4 * count);
+        return result;
+    }
+
+    private static long[] longs(ByteBuffer buf, int count) {
+        long[] result = new long[count];
+        buf.asLongBuffer().get(result);
+        buf.position(buf.position() + 8 * count);
+        return result;
+    }
+}
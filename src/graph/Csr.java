@@ -0,0 +1,79 @@
+package graph;
+import java.util.concurrent.ForkJoinPool;
+//копия IndexedGraph в плоских массивах для многопоточных алгоритмов
+//рёбра вершины id лежат в targets/weights на отрезке [offsets[id], offsets[id + 1]),
+//id совпадают с id исходного графа, у свободных id рёбер нет
+final class Csr {
+    private static final int GRAIN = 1 << 12;
+
+    final boolean directed;
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+
+    private Csr(boolean directed, int[] offsets, int[] targets, int[] weights) {
+        this.directed = directed;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    int size() {
+        return offsets.length - 1;
+    }
+
+    int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    int edgeCount() {
+        return targets.length;
+    }
+
+    //граф только читается, поэтому степени и рёбра копируются параллельно по кускам id
+    static Csr of(IndexedGraph<?> g, ForkJoinPool pool) {
+        int n = g.idBound();
+        int[] offsets = new int[n + 1];
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            for (int id = from; id < to; id++) {
+                offsets[id + 1] = g.vertexAt(id) == null ? 0 : g.degree(id);
+            }
+        });
+        for (int id = 0; id < n; id++) offsets[id + 1] += offsets[id];
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            for (int id = from; id < to; id++) {
+                int k = offsets[id];
+                int degree = offsets[id + 1] - k;
+                for (int j = 0; j < degree; j++) {
+                    targets[k + j] = g.targetAt(id, j);
+                    weights[k + j] = g.weightAt(id, j);
+                }
+            }
+        });
+        return new Csr(g.isDirected(), offsets, targets, weights);
+    }
+
+    //граф с развёрнутыми рёбрами: у вершины лежат входящие рёбра, targets - их источники
+    //у неориентированного графа входящие совпадают с исходящими
+    Csr reverse() {
+        if (!directed) return this;
+        int n = size();
+        int[] rOffsets = new int[n + 1];
+        for (int target : targets) rOffsets[target + 1]++;
+        for (int id = 0; id < n; id++) rOffsets[id + 1] += rOffsets[id];
+        int[] fill = new int[n];
+        int[] rTargets = new int[targets.length];
+        int[] rWeights = new int[targets.length];
+        for (int id = 0; id < n; id++) {
+            for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+                int v = targets[k];
+                int slot = rOffsets[v] + fill[v]++;
+                rTargets[slot] = id;
+                rWeights[slot] = weights[k];
+            }
+        }
+        return new Csr(true, rOffsets, rTargets, rWeights);
+    }
+}
@@ -0,0 +1,204 @@
+package graph;
+import structures.IntDynamicArray;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+//кратчайшие расстояния от одной вершины до всех методом delta-stepping (Meyer, Sanders)
+//вершины раскладываются по корзинам ширины delta по текущему расстоянию. корзины обрабатываются по возрастанию,
+//лёгкие рёбра (вес <= delta) корзины релаксируются параллельно, пока корзина не опустеет,
+//затем один раз релаксируются тяжёлые рёбра всех вершин корзины.
+//веса неотрицательны - это гарантирует addEdge, поэтому расстояние вершины из корзины i уже не станет меньше i * delta
+final class DeltaStepping {
+    private DeltaStepping() {}
+
+    static final long UNREACHED = Long.MAX_VALUE;
+    private static final int GRAIN = 1 << 9;
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    //delta по умолчанию: максимальный вес, делённый на среднюю степень
+    static int defaultDelta(Csr out, int vertexCount) {
+        int maxWeight = 0;
+        for (int w : out.weights) maxWeight = Math.max(maxWeight, w);
+        int averageDegree = Math.max(1, out.edgeCount() / Math.max(1, vertexCount));
+        return Math.max(1, maxWeight / averageDegree);
+    }
+
+    //циклический массив корзин: корзина с номером i лежит в slots[i % slots.length],
+    //пока current <= i < current + slots.length. более дальние вершины ждут в overflow.
+    //в корзине могут остаться устаревшие записи, их отсеивает проверка dist / delta == current
+    private static final class Buckets {
+        private final AtomicLongArray dist;
+        private final long delta;
+        private final IntDynamicArray[] slots;
+        private IntDynamicArray spare = new IntDynamicArray();
+        private IntDynamicArray overflow = new IntDynamicArray();
+        private long overflowMin = Long.MAX_VALUE;
+        private long current;
+        private int pending; //записей в slots
+
+        Buckets(AtomicLongArray dist, long delta, int count) {
+            this.dist = dist;
+            this.delta = delta;
+            this.slots = new IntDynamicArray[count];
+            for (int i = 0; i < count; i++) slots[i] = new IntDynamicArray();
+        }
+
+        void add(int v) {
+            long index = dist.get(v) / delta;
+            if (index - current >= slots.length) {
+                overflow.append(v);
+                overflowMin = Math.min(overflowMin, index);
+            } else {
+                slots[(int) (index % slots.length)].append(v);
+                pending++;
+            }
+        }
+
+        //перенести из overflow всё, что теперь попадает в окно
+        private void refill() {
+            IntDynamicArray waiting = overflow;
+            overflow = new IntDynamicArray();
+            overflowMin = Long.MAX_VALUE;
+            for (int i = 0; i < waiting.size(); i++) add(waiting.get(i));
+        }
+
+        //сдвинуть current на ближайшую непустую корзину, false - если корзин не осталось
+        boolean advance() {
+            while (true) {
+                if (overflowMin - current < slots.length) refill();
+                if (pending == 0) {
+                    if (overflow.isEmpty()) return false;
+                    current = overflowMin;
+                    continue;
+                }
+                if (!slots[(int) (current % slots.length)].isEmpty()) return true;
+                current++;
+            }
+        }
+
+        boolean currentIsEmpty() {
+            return slots[(int) (current % slots.length)].isEmpty();
+        }
+
+        //забрать записи текущей корзины, новые записи в неё пойдут в пустой массив
+        IntDynamicArray takeCurrent() {
+            int slot = (int) (current % slots.length);
+            IntDynamicArray taken = slots[slot];
+            spare.clear();
+            slots[slot] = spare;
+            spare = taken;
+            pending -= taken.size();
+            return taken;
+        }
+    }
+
+    private static boolean relax(AtomicLongArray dist, int v, long candidate) {
+        long current = dist.get(v);
+        while (candidate < current) {
+            if (dist.compareAndSet(v, current, candidate)) return true;
+            current = dist.get(v);
+        }
+        return false;
+    }
+
+    //релаксация лёгких или тяжёлых рёбер вершин vertices[0, size), улучшенные вершины попадают в корзины
+    private static void relaxAll(Csr out, AtomicLongArray dist, Buckets buckets, int[] vertices, int size,
+                                 int delta, boolean light, ForkJoinPool pool) {
+        IntDynamicArray[] parts = new IntDynamicArray[Parallel.chunks(size, GRAIN)];
+        Parallel.forChunks(pool, size, GRAIN, (chunk, from, to) -> {
+            IntDynamicArray improved = new IntDynamicArray();
+            for (int i = from; i < to; i++) {
+                int u = vertices[i];
+                long du = dist.get(u);
+                for (int k = out.offsets[u]; k < out.offsets[u + 1]; k++) {
+                    int w = out.weights[k];
+                    if ((w <= delta) == light && relax(dist, out.targets[k], du + w)) {
+                        improved.append(out.targets[k]);
+                    }
+                }
+            }
+            parts[chunk] = improved;
+        });
+        for (IntDynamicArray part : parts) {
+            for (int i = 0; i < part.size(); i++) buckets.add(part.get(i));
+        }
+    }
+
+    //расстояния от source до всех id, UNREACHED для недостижимых
+    static long[] distances(Csr out, int source, int delta, ForkJoinPool pool) {
+        int n = out.size();
+        AtomicLongArray dist = new AtomicLongArray(n);
+        int maxWeight = 0;
+        for (int id = 0; id < n; id++) dist.set(id, UNREACHED);
+        for (int w : out.weights) maxWeight = Math.max(maxWeight, w);
+        Buckets buckets = new Buckets(dist, delta, (int) Math.min(MAX_BUCKETS, (long) maxWeight / delta + 2));
+        dist.set(source, 0);
+        buckets.add(source);
+
+        int[] roundStamp = new int[n];   //вершина уже во фронтире этого прохода
+        int[] bucketStamp = new int[n];  //вершина уже в списке корзины для тяжёлых рёбер
+        int round = 0;
+        int bucket = 0;
+        int[] frontier = new int[16];
+        IntDynamicArray settled = new IntDynamicArray();
+        while (buckets.advance()) {
+            bucket++;
+            settled.clear();
+            while (!buckets.currentIsEmpty()) {
+                round++;
+                long current = buckets.current;
+                IntDynamicArray taken = buckets.takeCurrent();
+                int size = 0;
+                for (int i = 0; i < taken.size(); i++) {
+                    int v = taken.get(i);
+                    if (dist.get(v) / delta != current || roundStamp[v] == round) continue;
+                    roundStamp[v] = round;
+                    if (size == frontier.length) frontier = Arrays.copyOf(frontier, size * 2);
+                    frontier[size++] = v;
+                    if (bucketStamp[v] != bucket) {
+                        bucketStamp[v] = bucket;
+                        settled.append(v);
+                    }
+                }
+                relaxAll(out, dist, buckets, frontier, size, delta, true, pool);
+            }
+            relaxAll(out, dist, buckets, settled.toArray(), settled.size(), delta, false, pool);
+        }
+        long[] result = new long[n];
+        for (int id = 0; id < n; id++) result[id] = dist.get(id);
+        return result;
+    }
+
+    //предшественники по готовым расстояниям: обход от source только по рёбрам с dist[u] + w == dist[v].
+    //при нулевых весах такие рёбра могут образовывать циклы, обход гарантирует, что цепочка ведёт в source
+    static int[] predecessors(Csr out, long[] dist, int source, ForkJoinPool pool) {
+        int n = out.size();
+        AtomicIntegerArray prev = new AtomicIntegerArray(n);
+        for (int id = 0; id < n; id++) prev.set(id, -1);
+        prev.set(source, source);
+        int[] frontier = {source};
+        while (frontier.length > 0) {
+            int[] current = frontier;
+            IntDynamicArray[] parts = new IntDynamicArray[Parallel.chunks(current.length, GRAIN)];
+            Parallel.forChunks(pool, current.length, GRAIN, (chunk, from, to) -> {
+                IntDynamicArray found = new IntDynamicArray();
+                for (int i = from; i < to; i++) {
+                    int u = current[i];
+                    for (int k = out.offsets[u]; k < out.offsets[u + 1]; k++) {
+                        int v = out.targets[k];
+                        if (dist[u] + out.weights[k] == dist[v] && prev.get(v) == -1 && prev.compareAndSet(v, -1, u)) {
+                            found.append(v);
+                        }
+                    }
+                }
+                parts[chunk] = found;
+            });
+            frontier = Parallel.concat(parts);
+        }
+        int[] result = new int[n];
+        for (int id = 0; id < n; id++) result[id] = prev.get(id);
+        result[source] = -1;
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package graph;
+import exceptions.GraphError;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+//все попарные кратчайшие расстояния: матрица V x V long, строки и столбцы - вершины в порядке id
+//матрица лежит в куче или, если задан файл, в файле, отображённом в память (для матриц больше кучи);
+//такую матрицу нужно закрыть через close(), после этого читать её нельзя.
+//результат относится к графу на момент расчёта, после изменения графа его нужно пересчитать
+public class DistanceMatrix<V> implements AutoCloseable {
+    private final IndexedGraph<V> graph;
+    private final int[] index; //id -> номер строки, -1 у свободных id
+    private final int[] ids;   //номер строки -> id
+    private final LongMatrix matrix;
+    private final ApspEngine engine;
+
+    private DistanceMatrix(IndexedGraph<V> graph, int[] index, int[] ids, LongMatrix matrix, ApspEngine engine) {
+        this.graph = graph;
+        this.index = index;
+        this.ids = ids;
+        this.matrix = matrix;
+        this.engine = engine;
+    }
+
+    //filename == null - матрица в куче
+    static <V> DistanceMatrix<V> compute(IndexedGraph<V> g, ApspEngine engine, int parallelism, String filename) {
+        if (engine == null) throw new GraphError("Способ подсчёта не может быть пустым");
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        int[] index = new int[g.idBound()];
+        int[] ids = new int[g.vertexCount()];
+        int n = 0;
+        for (int id = 0; id < index.length; id++) {
+            if (g.vertexAt(id) == null) {
+                index[id] = -1;
+            } else {
+                index[id] = n;
+                ids[n++] = id;
+            }
+        }
+        LongMatrix matrix;
+        if (filename == null) {
+            matrix = LongMatrix.inHeap(n);
+        } else {
+            try {
+                matrix = LongMatrix.mapped(n, filename);
+            } catch (IOException e) {
+                throw new GraphError("Ошибка записи файла: " + e.getMessage(), e);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Csr out = Csr.of(g, pool);
+            ApspEngine used = engine == ApspEngine.AUTO ? AllPairs.choose(n, out.edgeCount()) : engine;
+            if (used == ApspEngine.JOHNSON) {
+                AllPairs.johnson(out, index, ids, matrix, pool);
+            } else {
+                AllPairs.floydWarshall(out, index, ids, matrix, pool);
+            }
+            return new DistanceMatrix<>(g, index, ids, matrix, used);
+        } catch (RuntimeException e) {
+            try {
+                matrix.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //каким способом посчитана матрица, AUTO здесь уже заменён на выбранный
+    public ApspEngine engine() {
+        return engine;
+    }
+
+    //число строк (вершин)
+    public int size() {
+        return ids.length;
+    }
+
+    public V vertexAt(int row) {
+        if (row < 0 || row >= ids.length) {
+            throw new GraphError("Строки " + row + " нет, всего строк " + ids.length);
+        }
+        return graph.vertexAt(ids[row]);
+    }
+
+    //номер строки (и столбца) вершины
+    public int indexOf(V v) {
+        int id = graph.idOf(v);
+        if (id == -1 || id >= index.length || index[id] == -1) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return index[id];
+    }
+
+    //длина кратчайшего пути from -> to, -1 если пути нет
+    public long distance(V from, V to) {
+        long d = matrix.get(indexOf(from), indexOf(to));
+        return d >= AllPairs.UNREACHED ? -1 : d;
+    }
+
+    //расстояния от from до всех вершин в порядке строк, -1 у недостижимых
+    public long[] row(V from) {
+        long[] row = new long[ids.length];
+        matrix.read(indexOf(from), 0, row, 0, row.length);
+        for (int i = 0; i < row.length; i++) if (row[i] >= AllPairs.UNREACHED) row[i] = -1;
+        return row;
+    }
+
+    //для матрицы в файле - сбросить её на диск и закрыть файл
+    @Override
+    public void close() {
+        try {
+            matrix.close();
+        } catch (IOException e) {
+            throw new GraphError("Ошибка записи файла: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.HashMap;
+import structures.IndexedHeap;
+import structures.IntDynamicArray;
+import java.util.Arrays;
+//кратчайшие расстояния от одной вершины, которые поддерживаются при изменениях графа (в духе Ramalingam-Reps)
+//таблица подписана на граф и после каждого изменения чинит только затронутую часть:
+//новое ребро u -> v, сокращающее путь до v, запускает Дейкстру от v только по улучшающимся вершинам;
+//удаление ребра дерева кратчайших путей u -> v делает недействительным поддерево v,
+//его расстояния считаются заново от его границы (входящих рёбер из остальных вершин).
+//удаление ребра вне дерева ничего не меняет. стоимость изменения - O(затронутые вершины и их рёбра * log)
+public class DynamicShortestPaths<V> implements GraphListener<V> {
+    private final Graph<V> graph;
+    private final IndexedGraph<V> reverse;
+    private final V source;
+    private final int sourceId;
+    private final HashMap<V, Integer> ids;   //своя копия вершина -> id: при удалении вершины граф уже не знает её id
+    private long[] dist;                     //id -> расстояние, DeltaStepping.UNREACHED если недостижима
+    private int[] prev;                      //id -> предыдущая вершина в дереве кратчайших путей, -1 у source и недостижимых
+    private boolean[] affected;
+    private final IndexedHeap heap = new IndexedHeap();
+    private final IntDynamicArray subtree = new IntDynamicArray();
+    private boolean detached;                //source удалён из графа
+    private int lastAffected;
+
+    DynamicShortestPaths(Graph<V> graph, IndexedGraph<V> reverse, V source) {
+        this.graph = graph;
+        this.reverse = reverse;
+        this.source = source;
+        this.sourceId = graph.idOf(source);
+        if (sourceId == -1) {
+            throw new GraphError("Вершина '" + source + "' не существует в графе");
+        }
+        int n = Math.max(1, graph.idBound());
+        ids = new HashMap<>(graph.vertexCount());
+        for (V v : graph.vertices()) ids.put(v, graph.idOf(v));
+        dist = new long[n];
+        Arrays.fill(dist, DeltaStepping.UNREACHED);
+        prev = new int[n];
+        Arrays.fill(prev, -1);
+        affected = new boolean[n];
+        dist[sourceId] = 0;
+        heap.offer(sourceId, 0);
+        propagate(false);
+        graph.addListener(this);
+    }
+
+    //отписаться от графа, дальше таблица не обновляется
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    public V source() {
+        return source;
+    }
+
+    private int ensureVertexExists(V v) {
+        if (detached) {
+            throw new GraphError("Вершина-источник '" + source + "' удалена из графа");
+        }
+        Integer id = ids.tryGet(v);
+        if (id == null) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    //длина кратчайшего пути от source, -1 если вершина недостижима
+    public long distance(V v) {
+        long d = dist[ensureVertexExists(v)];
+        return d == DeltaStepping.UNREACHED ? -1 : d;
+    }
+
+    public boolean isReachable(V v) {
+        return dist[ensureVertexExists(v)] != DeltaStepping.UNREACHED;
+    }
+
+    //предыдущая вершина на кратчайшем пути, null у source и недостижимых вершин
+    public V predecessor(V v) {
+        int p = prev[ensureVertexExists(v)];
+        return p == -1 ? null : graph.vertexAt(p);
+    }
+
+    public DynamicArray<V> pathTo(V goal) {
+        int g = ensureVertexExists(goal);
+        if (dist[g] == DeltaStepping.UNREACHED) {
+            throw new GraphError("Кратчайший путь от '" + source + "' до '" + goal + "' не существует");
+        }
+        int length = 1;
+        for (int v = g; v != sourceId; v = prev[v]) length++;
+        int[] path = new int[length];
+        for (int v = g, i = length - 1; i >= 0; v = prev[v], i--) path[i] = v;
+        DynamicArray<V> result = new DynamicArray<>(length);
+        for (int id : path) result.append(graph.vertexAt(id));
+        return result;
+    }
+
+    //сколько вершин получили новое расстояние при последнем изменении графа
+    public int lastAffected() {
+        return lastAffected;
+    }
+
+    @Override
+    public void vertexAdded(V v) {
+        int id = graph.idOf(v);
+        ids.put(v, id);
+        if (id >= dist.length) {
+            int old = dist.length;
+            int size = Math.max(id + 1, old * 2);
+            dist = Arrays.copyOf(dist, size);
+            Arrays.fill(dist, old, size, DeltaStepping.UNREACHED);
+            prev = Arrays.copyOf(prev, size);
+            Arrays.fill(prev, old, size, -1);
+            affected = Arrays.copyOf(affected, size);
+        }
+        lastAffected = 0;
+    }
+
+    //все рёбра вершины к этому моменту уже удалены и обработаны, она недостижима
+    @Override
+    public void vertexRemoved(V v) {
+        int id = ids.get(v);
+        ids.remove(v);
+        if (id == sourceId) detached = true;
+        dist[id] = DeltaStepping.UNREACHED;
+        prev[id] = -1;
+        lastAffected = 0;
+    }
+
+    @Override
+    public void edgeAdded(V from, V to, int weight) {
+        if (detached) return;
+        int u = ids.get(from);
+        int v = ids.get(to);
+        lastAffected = 0;
+        relaxInserted(u, v, weight);
+        if (!graph.isDirected()) relaxInserted(v, u, weight);
+        propagate(false);
+    }
+
+    private void relaxInserted(int u, int v, int weight) {
+        if (dist[u] != DeltaStepping.UNREACHED && dist[u] + weight < dist[v]) {
+            dist[v] = dist[u] + weight;
+            prev[v] = u;
+            heap.offer(v, dist[v]);
+        }
+    }
+
+    @Override
+    public void edgeRemoved(V from, V to, int weight) {
+        if (detached) return;
+        int u = ids.get(from);
+        int v = ids.get(to);
+        lastAffected = 0;
+        //в неориентированном графе ребро могло быть в дереве в любую сторону
+        if (prev[v] == u) markSubtree(v);
+        else if (!graph.isDirected() && prev[u] == v) markSubtree(u);
+        else return;
+
+        //расстояние каждой затронутой вершины - лучшее через входящие рёбра от незатронутых
+        for (int i = 0; i < subtree.size(); i++) {
+            int x = subtree.get(i);
+            dist[x] = DeltaStepping.UNREACHED;
+            prev[x] = -1;
+        }
+        for (int i = 0; i < subtree.size(); i++) {
+            int x = subtree.get(i);
+            int degree = degree(reverse, x);
+            for (int k = 0; k < degree; k++) {
+                int y = reverse.targetAt(x, k);
+                if (affected[y] || dist[y] == DeltaStepping.UNREACHED) continue;
+                long alt = dist[y] + reverse.weightAt(x, k);
+                if (alt < dist[x]) {
+                    dist[x] = alt;
+                    prev[x] = y;
+                }
+            }
+            if (dist[x] != DeltaStepping.UNREACHED) heap.offer(x, dist[x]);
+        }
+        propagate(true);
+        lastAffected = subtree.size();
+        for (int i = 0; i < subtree.size(); i++) affected[subtree.get(i)] = false;
+        subtree.clear();
+    }
+
+    //при удалении вершины события о её рёбрах приходят, когда её списков рёбер уже нет
+    private static int degree(IndexedGraph<?> g, int x) {
+        return g.vertexAt(x) == null ? 0 : g.degree(x);
+    }
+
+    //поддерево кратчайших путей с корнем root: дети x - концы рёбер x -> y с prev[y] == x
+    private void markSubtree(int root) {
+        affected[root] = true;
+        subtree.append(root);
+        for (int i = 0; i < subtree.size(); i++) {
+            int x = subtree.get(i);
+            int degree = degree(graph, x);
+            for (int k = 0; k < degree; k++) {
+                int y = graph.targetAt(x, k);
+                if (!affected[y] && prev[y] == x) {
+                    affected[y] = true;
+                    subtree.append(y);
+                }
+            }
+        }
+    }
+
+    //Дейкстра от вершин в куче; onlyAffected - расстояния остальных вершин после удаления ребра не меняются
+    private void propagate(boolean onlyAffected) {
+        while (!heap.isEmpty()) {
+            int x = heap.pollMin();
+            lastAffected++;
+            long dx = dist[x];
+            int degree = degree(graph, x);
+            for (int k = 0; k < degree; k++) {
+                int y = graph.targetAt(x, k);
+                if (onlyAffected && !affected[y]) continue;
+                long alt = dx + graph.weightAt(x, k);
+                if (alt < dist[y]) {
+                    dist[y] = alt;
+                    prev[y] = x;
+                    heap.offer(y, alt);
+                }
+            }
+        }
+    }
+}
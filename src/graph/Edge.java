@@ -1,14 +1,22 @@
 package graph;
 public class Edge<V> {
     private final V to;
+    private final int toId; //id вершины to внутри графа, -1 для рёбер созданных вне графа
     private final int weight;
     public Edge(V to, int weight) {
+        this(to, -1, weight);
+    }
+    Edge(V to, int toId, int weight) {
         this.to = to;
+        this.toId = toId;
         this.weight = weight;
     }
     public V getTo() {
         return to;
     }
+    int toId() {
+        return toId;
+    }
     public int getWeight() {
         return weight;
     }
@@ -0,0 +1,72 @@
+package graph;
+import structures.DynamicArray;
+import structures.IntIntHashMap;
+//исходящие рёбра одной вершины
+//пока рёбер мало, ищем линейно; после INDEX_THRESHOLD строим индекс id конца -> позиция, и поиск становится O(1)
+final class EdgeList<V> {
+    static final int INDEX_THRESHOLD = 16;
+    private final DynamicArray<Edge<V>> edges = new DynamicArray<>();
+    private IntIntHashMap index; //null, пока индекс не нужен
+
+    DynamicArray<Edge<V>> edges() {
+        return edges;
+    }
+
+    int size() {
+        return edges.size();
+    }
+
+    //позиция ребра в edges или -1
+    int indexOf(int toId) {
+        if (index != null) {
+            return index.getOrDefault(toId, -1);
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            if (edges.get(i).toId() == toId) return i;
+        }
+        return -1;
+    }
+
+    Edge<V> find(int toId) {
+        int i = indexOf(toId);
+        return i == -1 ? null : edges.get(i);
+    }
+
+    void add(Edge<V> e) {
+        edges.append(e);
+        if (index != null) {
+            index.put(e.toId(), edges.size() - 1);
+        } else if (edges.size() > INDEX_THRESHOLD) {
+            buildIndex();
+        }
+    }
+
+    private void buildIndex() {
+        index = new IntIntHashMap(edges.size() * 2);
+        for (int i = 0; i < edges.size(); i++) {
+            index.put(edges.get(i).toId(), i);
+        }
+    }
+
+    //удалить ребро в toId, вернуть его или null
+    //с индексом на место удалённого встаёт последнее ребро (O(1)), поэтому порядок соседей у такой вершины
+    //после удалений не сохраняется; без индекса сдвигаем хвост и порядок остаётся прежним
+    Edge<V> remove(int toId) {
+        int i = indexOf(toId);
+        if (i == -1) return null;
+        Edge<V> removed = edges.get(i);
+        if (index == null) {
+            edges.removeAt(i);
+            return removed;
+        }
+        int last = edges.size() - 1;
+        if (i != last) {
+            Edge<V> moved = edges.get(last);
+            edges.set(i, moved);
+            index.put(moved.toId(), i);
+        }
+        edges.removeAt(last);
+        index.remove(toId);
+        return removed;
+    }
+}
@@ -2,16 +2,40 @@ package graph;
 import exceptions.GraphError;
 import structures.DynamicArray;
 import structures.HashMap;
-import structures.Queue;
-import structures.Stack;
+import structures.IntDynamicArray;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
-public class Graph<V> {
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Stream;
+public class Graph<V> implements IndexedGraph<V> {
     private final boolean directed;
-    //cписок смежности ключ - вершина, значение - список исходящих ребер
-    private final HashMap<V, DynamicArray<Edge<V>>> adj;
+    //каждая вершина получает целый id, по нему хранятся списки смежности и состояние обходов
+    private final HashMap<V, Integer> ids;                  //вершина -> id
+    private final DynamicArray<V> names;                    //id -> вершина, null если id свободен
+    private final DynamicArray<EdgeList<V>> adj;            //id -> список исходящих ребер
+    //id -> входящие рёбра (getTo() у них - вершина-источник), только для ориентированного графа,
+    //в неориентированном входящие совпадают с исходящими
+    private final DynamicArray<EdgeList<V>> in;
+    private final IntDynamicArray freeIds;                  //id удалённых вершин для повторного использования
+    private GraphSnapshot.Builder<V> versions;              //создаётся при первом snapshot(), до этого изменения не отслеживаются
+    private long version;                                   //номер изменения, растёт при каждой правке графа
+    private DynamicArray<GraphListener<V>> listeners;       //null, пока нет подписчиков
     public Graph(boolean directed) {
+        this(directed, 0);
+    }
+
+    //граф с заранее выделенным местом под expectedVertices вершин
+    public Graph(boolean directed, int expectedVertices) {
+        if (expectedVertices < 0) throw new GraphError("Ожидаемое число вершин не может быть отрицательным");
+        int capacity = Math.max(4, expectedVertices);
         this.directed = directed;
-        this.adj = new HashMap<>();
+        this.ids = new HashMap<>(expectedVertices);
+        this.names = new DynamicArray<>(capacity);
+        this.adj = new DynamicArray<>(capacity);
+        this.in = directed ? new DynamicArray<>(capacity) : null;
+        this.freeIds = new IntDynamicArray();
     }
 
     public Graph() {
@@ -21,101 +45,320 @@ public class Graph<V> {
         return directed; }
 
     public void addVertex(V v) {
-        if (adj.containsKey(v)) throw new GraphError("Вершина '" + v + "' уже существует");
-        adj.put(v, new DynamicArray<>());
+        if (ids.containsKey(v)) throw new GraphError("Вершина '" + v + "' уже существует");
+        int id;
+        if (!freeIds.isEmpty()) {
+            id = freeIds.removeLast();
+            names.set(id, v);
+            adj.set(id, new EdgeList<>());
+            if (directed) in.set(id, new EdgeList<>());
+        } else {
+            id = names.size();
+            names.append(v);
+            adj.append(new EdgeList<>());
+            if (directed) in.append(new EdgeList<>());
+        }
+        ids.put(v, id);
+        touch(id);
+        if (listeners != null) {
+            for (int i = 0; i < listeners.size(); i++) listeners.get(i).vertexAdded(v);
+        }
+    }
+
+    //отметить, что у вершины id поменялось имя или исходящие рёбра
+    private void touch(int id) {
+        version++;
+        if (versions != null) versions.touch(id);
+    }
+
+    //номер текущего состояния графа: меняется при каждом добавлении или удалении вершины или ребра
+    public long version() {
+        return version;
+    }
+
+    //подписаться на изменения графа, подписчик вызывается в том же потоке сразу после изменения
+    public void addListener(GraphListener<V> listener) {
+        if (listener == null) throw new GraphError("Подписчик не может быть пустым");
+        if (listeners == null) listeners = new DynamicArray<>();
+        listeners.append(listener);
     }
 
+    public void removeListener(GraphListener<V> listener) {
+        if (listeners == null) return;
+        for (int i = 0; i < listeners.size(); i++) {
+            if (listeners.get(i) == listener) {
+                listeners.removeAt(i);
+                break;
+            }
+        }
+        if (listeners.size() == 0) listeners = null;
+    }
+
+    private void fireEdgeRemoved(V from, V to, int weight) {
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).edgeRemoved(from, to, weight);
+    }
+
+    public boolean containsVertex(V v) {
+        return ids.containsKey(v); }
+
     //важно проверить наличие вершины перед любой операцией
-    private void ensureVertexExists(V v) {
-        if (!adj.containsKey(v)) {
+    private int ensureVertexExists(V v) {
+        Integer id = ids.tryGet(v);
+        if (id == null) {
             throw new GraphError("Вершина '" + v + "' не существует в графе");
         }
+        return id;
     }
 
+    //массив только для чтения, менять его в обход Graph нельзя
+    //рёбра идут в порядке добавления; если у вершины хоть раз было больше EdgeList.INDEX_THRESHOLD рёбер,
+    //удаление ставит на место удалённого последнее ребро, и порядок после этого не сохраняется
     public DynamicArray<Edge<V>> edgesFrom(V v) {
-        ensureVertexExists(v);
-        return adj.get(v);
+        return adj.get(ensureVertexExists(v)).edges();
     }
 
     public Iterable<V> vertices() {
-        return adj.keys(); }
+        return ids.keys(); }
+
+    public int vertexCount() {
+        return ids.size(); }
+
+    public int idBound() {
+        return names.size(); }
+
+    public int idOf(V v) {
+        Integer id = ids.tryGet(v);
+        return id == null ? -1 : id;
+    }
+
+    public V vertexAt(int id) {
+        return names.get(id); }
+
+    public int degree(int id) {
+        return adj.get(id).size(); }
+
+    public int targetAt(int id, int k) {
+        return adj.get(id).edges().get(k).toId(); }
+
+    public int weightAt(int id, int k) {
+        return adj.get(id).edges().get(k).getWeight(); }
 
     public void addEdge(V from, V to, int weight)
     {
         if (weight < 0) throw new GraphError("Вес не может быть отрицательным");
         //автоматически создаем вершины, если их нет
-        if (!adj.containsKey(from)) addVertex(from);
-        if (!adj.containsKey(to)) addVertex(to);
+        if (!ids.containsKey(from)) addVertex(from);
+        if (!ids.containsKey(to)) addVertex(to);
+        addEdgeById(ids.get(from), ids.get(to), weight);
+    }
 
-        //проверка дубликатов
-        for (Edge<V> e : adj.get(from))
-        {
-            if (e.getTo().equals(to)) throw new GraphError("Ребро уже есть");
-        }
+    //добавление ребра между уже существующими вершинами по их id
+    void addEdgeById(int fromId, int toId, int weight) {
+        if (weight < 0) throw new GraphError("Вес не может быть отрицательным");
+        V from = names.get(fromId);
+        V to = names.get(toId);
+
+        //проверка дубликатов, у вершин с большой степенью через индекс за O(1)
+        if (adj.get(fromId).indexOf(toId) != -1) throw new GraphError("Ребро уже есть");
 
-        adj.get(from).append(new Edge<>(to, weight));
+        adj.get(fromId).add(new Edge<>(to, toId, weight));
+        touch(fromId);
 
+        //в ориентированном графе запоминаем ребро во входящих у to,
         //если граф неориентированный, добавляем обратное ребро
-        if (!directed && !from.equals(to))
+        if (directed) {
+            in.get(toId).add(new Edge<>(from, fromId, weight));
+        } else if (fromId != toId)
         {
-            adj.get(to).append(new Edge<>(from, weight));
+            adj.get(toId).add(new Edge<>(from, fromId, weight));
+            touch(toId);
+        }
+        if (listeners != null) {
+            for (int i = 0; i < listeners.size(); i++) listeners.get(i).edgeAdded(from, to, weight);
         }
     }
 
     public void removeVertex(V v)
     {
-        ensureVertexExists(v);
-        adj.remove(v); //удаляем саму вершину и исходящие
-        //проходим по всем остальным вершинам и удаляем ребра, ведущие в v
-        for (V u : vertices())
+        int id = ensureVertexExists(v);
+        //удаляем рёбра, ведущие в v, трогаем только соседей v - O(deg) в среднем:
+        //у соседа с большим числом рёбер ребро находится и убирается через индекс EdgeList за O(1)
+        DynamicArray<Edge<V>> incoming = incoming(id).edges();
+        for (int i = 0; i < incoming.size(); i++)
         {
-            DynamicArray<Edge<V>> edges = adj.get(u);
-            if (edges == null) continue;
-            int i = 0;
-            while (i < edges.size()) {
-                if (edges.get(i).getTo().equals(v)) {
-                    edges.removeAt(i);
-                } else {
-                    i++;
+            int u = incoming.get(i).toId();
+            if (u != id) {
+                adj.get(u).remove(id);
+                touch(u);
+            }
+        }
+        //у концов исходящих рёбер убираем v из входящих
+        if (directed) {
+            DynamicArray<Edge<V>> outgoing = adj.get(id).edges();
+            for (int i = 0; i < outgoing.size(); i++) {
+                int w = outgoing.get(i).toId();
+                if (w != id) in.get(w).remove(id);
+            }
+            in.set(id, null);
+        }
+        //удаляем саму вершину и исходящие, id освобождается
+        ids.remove(v);
+        names.set(id, null);
+        EdgeList<V> removedEdges = adj.get(id);
+        adj.set(id, null);
+        freeIds.append(id);
+        touch(id);
+        if (listeners != null) {
+            //сначала все рёбра вершины (петля - один раз), потом сама вершина
+            for (int i = 0; i < incoming.size(); i++) {
+                Edge<V> e = incoming.get(i);
+                if (directed) fireEdgeRemoved(e.getTo(), v, e.getWeight());
+                else fireEdgeRemoved(v, e.getTo(), e.getWeight());
+            }
+            if (directed) {
+                DynamicArray<Edge<V>> edges = removedEdges.edges();
+                for (int i = 0; i < edges.size(); i++) {
+                    Edge<V> e = edges.get(i);
+                    if (e.toId() != id) fireEdgeRemoved(v, e.getTo(), e.getWeight());
                 }
             }
+            for (int i = 0; i < listeners.size(); i++) listeners.get(i).vertexRemoved(v);
         }
     }
 
+    private EdgeList<V> incoming(int id) {
+        return directed ? in.get(id) : adj.get(id);
+    }
+
+    //входящие рёбра вершины, у каждого getTo() возвращает вершину, из которой ребро выходит
+    //массив только для чтения
+    public DynamicArray<Edge<V>> incomingEdges(V v) {
+        return incoming(ensureVertexExists(v)).edges();
+    }
+
+    public int inDegree(V v) {
+        return incoming(ensureVertexExists(v)).size();
+    }
+
+    public int outDegree(V v) {
+        return adj.get(ensureVertexExists(v)).size();
+    }
+
     // удалить направленное ребро из u в v
-    private void removeSingleDirected(V u, V v) {
-        DynamicArray<Edge<V>> edges = adj.get(u);
-        int idx = 0;
-        boolean removed = false;
-        while (idx < edges.size()) {
-            Edge<V> e = edges.get(idx);
-            if (e.getTo().equals(v)) {
-                edges.removeAt(idx);
-                removed = true;
-                break;
-            } else {
-                idx++;
-            }
-        }
-        if (!removed) {
-            throw new GraphError("Ребро '" + u + "' -> '" + v + "' не найдено в графе");
+    private Edge<V> removeSingleDirected(int u, int v) {
+        Edge<V> removed = adj.get(u).remove(v);
+        if (removed == null) {
+            throw new GraphError("Ребро '" + names.get(u) + "' -> '" + names.get(v) + "' не найдено в графе");
         }
+        return removed;
     }
 
     public void removeEdge(V from, V to) {
-        ensureVertexExists(from);
-        ensureVertexExists(to);
+        int fromId = ensureVertexExists(from);
+        int toId = ensureVertexExists(to);
+
+        Edge<V> removed = removeSingleDirected(fromId, toId);
+        touch(fromId);
+        if (directed) {
+            in.get(toId).remove(fromId);
+        } else if (fromId != toId) {
+            removeSingleDirected(toId, fromId);
+            touch(toId);
+        }
+        if (listeners != null) fireEdgeRemoved(from, to, removed.getWeight());
+    }
+
+    public boolean hasEdge(V from, V to) {
+        int fromId = idOf(from);
+        int toId = idOf(to);
+        return fromId != -1 && toId != -1 && adj.get(fromId).indexOf(toId) != -1;
+    }
 
-        removeSingleDirected(from, to);
-        if (!directed && !from.equals(to)) {
-            removeSingleDirected(to, from);
+    //вес ребра from -> to
+    public int getWeight(V from, V to) {
+        int fromId = ensureVertexExists(from);
+        int toId = ensureVertexExists(to);
+        Edge<V> e = adj.get(fromId).find(toId);
+        if (e == null) {
+            throw new GraphError("Ребро '" + from + "' -> '" + to + "' не найдено в графе");
         }
+        return e.getWeight();
+    }
+
+    //неизменяемый компактный снимок графа для частых запросов
+    public CompactGraph<V> freeze() {
+        return new CompactGraph<>(this);
+    }
+
+    //граф с развёрнутыми рёбрами поверх списков входящих, для поиска от конца пути
+    private IndexedGraph<V> reversed() {
+        if (!directed) return this;
+        return new IndexedGraph<V>() {
+            public boolean isDirected() {
+                return true; }
+
+            public int vertexCount() {
+                return Graph.this.vertexCount(); }
+
+            public int idBound() {
+                return Graph.this.idBound(); }
+
+            public int idOf(V v) {
+                return Graph.this.idOf(v); }
+
+            public V vertexAt(int id) {
+                return Graph.this.vertexAt(id); }
+
+            public int degree(int id) {
+                return in.get(id).size(); }
+
+            public int targetAt(int id, int k) {
+                return in.get(id).edges().get(k).toId(); }
+
+            public int weightAt(int id, int k) {
+                return in.get(id).edges().get(k).getWeight(); }
+        };
+    }
+
+    //кеш на capacity последних пар (start, goal) для shortestPath и веса пути, сам следит за изменениями графа
+    public PathCache<V> pathCache(int capacity) {
+        return new PathCache<>(this, capacity);
+    }
+
+    //опорные вершины для оценок расстояний и A* (ALT), память - k * V * 4 байта на направление
+    public Landmarks<V> landmarks(int count, LandmarkSelection selection, int parallelism) {
+        return Landmarks.build(this, count, selection, parallelism);
+    }
+
+    //индекс Contraction Hierarchies над замороженной копией графа
+    public ContractionHierarchy<V> contract() {
+        return freeze().contract();
+    }
+
+    //неизменяемый снимок текущего состояния с теми же id вершин
+    //первый вызов копирует граф за O(V + E), следующие - только вершины, изменённые с прошлого снимка.
+    //вызывать из потока, который меняет граф; сам снимок можно читать из любых потоков параллельно с изменениями
+    public GraphSnapshot<V> snapshot() {
+        if (versions == null) versions = new GraphSnapshot.Builder<>(this);
+        return versions.snapshot(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Edge<V>[] newEdgeArray(int size) {
+        return (Edge<V>[]) new Edge<?>[size];
+    }
+
+    //рёбра вершины id отдельным массивом для снимка
+    Edge<V>[] frozenEdges(int id) {
+        DynamicArray<Edge<V>> edges = adj.get(id).edges();
+        Edge<V>[] result = newEdgeArray(edges.size());
+        for (int i = 0; i < result.length; i++) result[i] = edges.get(i);
+        return result;
     }
 
     //получить список соседей вершины
     public DynamicArray<V> getAdjacent(V v) {
-        ensureVertexExists(v);
-        DynamicArray<Edge<V>> edges = adj.get(v);
+        DynamicArray<Edge<V>> edges = edgesFrom(v);
         DynamicArray<V> result = new DynamicArray<>();
         for (Edge<V> e : edges) {
             result.append(e.getTo());
@@ -123,34 +366,9 @@ public class Graph<V> {
         return result;
     }
 
-    //DFS используем Stack
+    //DFS используем стек id
     private DynamicArray<V> dfsOrder(V start, Consumer<V> visit) {
-        ensureVertexExists(start);
-        HashMap<V, Boolean> visited = new HashMap<>();
-        DynamicArray<V> order = new DynamicArray<>();
-        Stack<V> stack = new Stack<>();
-        stack.push(start);
-        while (!stack.isEmpty()) {
-            V v = stack.pop();
-            if (visited.containsKey(v)) {
-                continue;  // уже были
-            }
-            visited.put(v, Boolean.TRUE);
-            order.append(v);
-            if (visit != null) {
-                visit.accept(v);
-            }
-            //добавляем соседей в стек
-            //в обратном порядке
-            DynamicArray<V> neighbors = getAdjacent(v);
-            for (int i = neighbors.size() - 1; i >= 0; i--) {
-                V u = neighbors.get(i);
-                if (!visited.containsKey(u)) {
-                    stack.push(u);
-                }
-            }
-        }
-        return order;
+        return Traversals.dfsOrder(this, ensureVertexExists(start), visit);
     }
 
     //порядок обхода
@@ -162,30 +380,9 @@ public class Graph<V> {
     }
 
 
-    //BFS используем очередь
+    //BFS используем очередь id
     private DynamicArray<V> bfsOrder(V start, Consumer<V> visit) {
-        ensureVertexExists(start);
-        HashMap<V, Boolean> visited = new HashMap<>();
-        DynamicArray<V> order = new DynamicArray<>();
-        Queue<V> queue = new Queue<>();
-        visited.put(start, Boolean.TRUE);
-        queue.enqueue(start);
-        while (!queue.isEmpty()) {
-            V v = queue.dequeue();
-            order.append(v);
-            if (visit != null) {
-                visit.accept(v);
-            }
-            DynamicArray<V> neighbors = getAdjacent(v);
-            for (int i = 0; i < neighbors.size(); i++) {
-                V u = neighbors.get(i);
-                if (!visited.containsKey(u)) {
-                    visited.put(u, Boolean.TRUE);
-                    queue.enqueue(u);
-                }
-            }
-        }
-        return order;
+        return Traversals.bfsOrder(this, ensureVertexExists(start), visit);
     }
     //порядок обхода
     public DynamicArray<V> bfsOrder(V start) {
@@ -196,86 +393,145 @@ public class Graph<V> {
         bfsOrder(start, null);
     }
 
-    //Алгоритм Дейкстра
+    //BFS с посетителем: он видит вершины с родителем и глубиной и рёбра, может отсечь поддерево (SKIP_SUBTREE)
+    //или остановить обход (STOP). порядок обхода не собирается. true, если обход остановлен посетителем
+    public boolean bfs(V start, TraversalVisitor<V> visitor) {
+        if (visitor == null) throw new GraphError("Посетитель не может быть пустым");
+        return Traversals.bfs(this, ensureVertexExists(start), visitor);
+    }
+
+    //DFS с посетителем, рёбра каждой вершины просматриваются по порядку, как в рекурсивном DFS
+    public boolean dfs(V start, TraversalVisitor<V> visitor) {
+        if (visitor == null) throw new GraphError("Посетитель не может быть пустым");
+        return Traversals.dfs(this, ensureVertexExists(start), visitor);
+    }
+
+    //есть ли путь из start в goal не длиннее maxHops рёбер, дальше maxHops обход не идёт
+    public boolean isReachableWithin(V start, V goal, int maxHops) {
+        if (maxHops < 0) throw new GraphError("Число рёбер не может быть отрицательным");
+        return Traversals.withinHops(this, ensureVertexExists(start), ensureVertexExists(goal), maxHops);
+    }
+
+    //ленивые обходы: вершины выдаются по одной, в памяти только граница (стек) и посещённые,
+    //обход можно оборвать в любой момент. если граф изменится до конца обхода, итератор бросит ConcurrentModificationException
+    public Iterator<V> bfsIterator(V start) {
+        return Traversals.bfsIterator(this, ensureVertexExists(start));
+    }
+
+    public Iterator<V> dfsIterator(V start) {
+        return Traversals.dfsIterator(this, ensureVertexExists(start));
+    }
+
+    //то же потоком, limit()/takeWhile() останавливают обход
+    public Stream<V> bfsStream(V start) {
+        return Traversals.stream(bfsIterator(start));
+    }
+
+    public Stream<V> dfsStream(V start) {
+        return Traversals.stream(dfsIterator(start));
+    }
+
+    //многопоточный BFS по уровням: расстояния в рёбрах до всех вершин и порядок обхода
+    //граф копируется в массивы, менять его во время обхода нельзя
+    public BfsResult<V> parallelBfs(V start, int parallelism) {
+        return BfsResult.run(this, ensureVertexExists(start), parallelism);
+    }
+
+    //то же в пуле вызывающего, чтобы частые обходы не создавали каждый раз новые потоки; пул не закрывается
+    public BfsResult<V> parallelBfs(V start, ForkJoinPool pool) {
+        return BfsResult.run(this, ensureVertexExists(start), pool);
+    }
+
+    //Алгоритм Дейкстра на индексированной куче, O((V+E) log V)
     public DynamicArray<V> shortestPath(V start, V goal) {
-        ensureVertexExists(start);
-        ensureVertexExists(goal);
-        HashMap<V, Double> dist = new HashMap<>(); //расстояния до вершин
-        HashMap<V, V> prev = new HashMap<>();      //предки для восстановления пути
-        DynamicArray<V> unvisited = new DynamicArray<>(); //множество непосещённых
-        for (V v : vertices()) {
-            dist.put(v, Double.POSITIVE_INFINITY);
-            prev.put(v, null);
-            unvisited.append(v);
+        int s = ensureVertexExists(start);
+        int g = ensureVertexExists(goal);
+        return Traversals.shortestPath(this, s, g, null);
+    }
+
+    //кратчайший путь выбранным способом, stats (может быть null) получает число снятых с кучи вершин
+    public DynamicArray<V> shortestPath(V start, V goal, PathSearch search, SearchStats stats) {
+        int s = ensureVertexExists(start);
+        int g = ensureVertexExists(goal);
+        if (search == PathSearch.BIDIRECTIONAL) {
+            return Traversals.bidirectionalPath(this, reversed(), s, g, stats);
         }
-        dist.put(start, 0.0);
-
-        // пока есть непосещённые вершины
-        while (unvisited.size() > 0) {
-            //выбираем вершину с минимальной текущей дистанцией
-            int minIndex = 0;
-            V minVertex = unvisited.get(0);
-            double minDist = dist.get(minVertex);
-
-            for (int i = 1; i < unvisited.size(); i++) {
-                V v = unvisited.get(i);
-                double d = dist.get(v);
-                if (d < minDist) {
-                    minDist = d;
-                    minVertex = v;
-                    minIndex = i;
-                }
-            }
+        return Traversals.shortestPath(this, s, g, stats);
+    }
 
-            V v = minVertex;
-            unvisited.removeAt(minIndex);
+    public DynamicArray<V> shortestPath(V start, V goal, PathSearch search) {
+        return shortestPath(start, goal, search, null);
+    }
 
-            //если достигли цели выходим
-            if (v.equals(goal) || minDist == Double.POSITIVE_INFINITY) {
-                break;
-            }
-            DynamicArray<Edge<V>> edges = adj.get(v);
-            //рассматриваем все рёбра v к u
-            for (int i = 0; i < edges.size(); i++) {
-                Edge<V> e = edges.get(i);
-                V u = e.getTo();
-                double alt = dist.get(v) + e.getWeight(); //альтернативный путь через v
-                double du = dist.get(u);
-                if (alt < du) {
-                    dist.put(u, alt);
-                    prev.put(u, v);
-                }
-            }
-        }
+    //A* с оценкой heuristic(v, goal) оставшегося расстояния, оценка не должна превышать настоящее расстояние
+    public DynamicArray<V> shortestPath(V start, V goal, ToDoubleBiFunction<V, V> heuristic, SearchStats stats) {
+        int s = ensureVertexExists(start);
+        int g = ensureVertexExists(goal);
+        return Traversals.astarPath(this, s, g, heuristic, stats);
+    }
 
-        double dGoal = dist.get(goal);
-        if (Double.isInfinite(dGoal)) {
-            throw new GraphError(
-                    "Кратчайший путь от '" + start + "' до '" + goal + "' не существует"
-            );
-        }
+    public DynamicArray<V> shortestPath(V start, V goal, ToDoubleBiFunction<V, V> heuristic) {
+        return shortestPath(start, goal, heuristic, null);
+    }
 
-        //восстанавливаем путь от goal к start по prev
-        DynamicArray<V> path = new DynamicArray<>();
-        V cur = goal;
-        while (cur != null) {
-            path.append(cur);
-            cur = prev.tryGet(cur);
-        }
+    //расстояния в рёбрах от многих источников сразу (MS-BFS пачками по 64), матрица источник x id
+    public HopDistances<V> hopDistances(Iterable<V> sources, int parallelism) {
+        return HopDistances.run(this, sources, parallelism);
+    }
 
-        //разворачиваем массив, чтобы путь шёл от start к goal
-        int i = 0;
-        int j = path.size() - 1;
-        while (i < j) {
-            V a = path.get(i);
-            V b = path.get(j);
-            path.set(i, b);
-            path.set(j, a);
-            i++;
-            j--;
-        }
+    //то же без общей матрицы: consumer получает каждый источник и его массив id -> число рёбер (-1 - недостижима)
+    public void hopDistances(Iterable<V> sources, int parallelism, BiConsumer<V, int[]> consumer) {
+        HopDistances.stream(this, sources, parallelism, consumer);
+    }
+
+    //все попарные кратчайшие расстояния; engine - Floyd-Warshall, Johnson или AUTO (выбор по плотности графа)
+    public DistanceMatrix<V> allPairsShortestPaths(ApspEngine engine, int parallelism) {
+        return DistanceMatrix.compute(this, engine, parallelism, null);
+    }
+
+    //то же с матрицей в файле filename, отображённом в память (V * V * 8 байт), результат нужно закрыть
+    public DistanceMatrix<V> allPairsShortestPaths(ApspEngine engine, int parallelism, String filename) {
+        if (filename == null) throw new GraphError("Имя файла не может быть пустым");
+        return DistanceMatrix.compute(this, engine, parallelism, filename);
+    }
+
+    //компоненты связности (у ориентированного графа - слабой связности), параллельный union-find
+    public Components<V> connectedComponents(int parallelism) {
+        return Components.connected(this, parallelism);
+    }
+
+    //компоненты сильной связности без рекурсии: parallelism == 1 - Tarjan, больше - параллельный forward-backward
+    public Components<V> stronglyConnectedComponents(int parallelism) {
+        return Components.strong(this, parallelism);
+    }
 
-        return path;
+    //кратчайшие расстояния и предшественники от start до всех вершин, многопоточный delta-stepping
+    //delta - ширина корзины: маленькая ближе к Дейкстре, большая даёт больше параллельной работы и повторных релаксаций
+    public ShortestPathTable<V> shortestPathsFrom(V start, int delta, int parallelism) {
+        if (delta <= 0) throw new GraphError("Ширина корзины должна быть положительной");
+        return ShortestPathTable.deltaStepping(this, ensureVertexExists(start), delta, parallelism);
+    }
+
+    //то же с шириной корзины, подобранной по весам и средней степени
+    public ShortestPathTable<V> shortestPathsFrom(V start, int parallelism) {
+        return ShortestPathTable.deltaStepping(this, ensureVertexExists(start), 0, parallelism);
+    }
+
+    //дерево кратчайших путей от start, которое достраивается лениво: каждый запрос продолжает Дейкстру
+    //только до запрошенной вершины. после изменения графа дерево строится заново
+    public ShortestPathTree<V> shortestPathTree(V start) {
+        return new ShortestPathTree<>(this, start);
+    }
+
+    //кеш таких деревьев по источникам, суммарно не больше budgetBytes байт
+    public ShortestPathTreeCache<V> shortestPathTrees(long budgetBytes) {
+        return new ShortestPathTreeCache<>(this, budgetBytes);
+    }
+
+    //кратчайшие расстояния от start, которые сами чинятся после каждого добавления и удаления рёбер и вершин
+    //close() у результата отписывает его от графа
+    public DynamicShortestPaths<V> dynamicShortestPaths(V start) {
+        return new DynamicShortestPaths<>(this, reversed(), start);
     }
 
     //посчитать суммарный вес пути
@@ -290,30 +546,16 @@ public class Graph<V> {
             V from = path.get(i);
             V to = path.get(i + 1);
 
-            DynamicArray<Edge<V>> edges = edgesFrom(from);
-            boolean found = false;
-
-            for (Edge<V> e : edges) {
-                if (e.getTo().equals(to)) {
-                    total += e.getWeight();
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
+            int toId = idOf(to);
+            Edge<V> e = toId == -1 ? null : adj.get(ensureVertexExists(from)).find(toId);
+            if (e == null) {
                 throw new GraphError("Не найдено ребро " +
                         from + " -> " + to + " при подсчёте длины пути");
             }
+            total += e.getWeight();
         }
 
         return total;
     }
 
 }
-
-
-
-
-
-
@@ -1,10 +1,23 @@
 package graph;
 import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.IntDynamicArray;
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 //класс для сохранения и загрузки графа из текстового файла
 public class GraphIO {
     public interface GraphFactory<V> {
-        Graph<V> create(boolean directed); }
+        Graph<V> create(boolean directed);
+        //фабрика может выделить место заранее, если число вершин известно
+        default Graph<V> create(boolean directed, int expectedVertices) {
+            return create(directed); }
+    }
     public interface VertexParser<V> {
         V parse(String s); }
     public static <V> void saveToFile(Graph<V> graph, String filename) {
@@ -49,4 +62,459 @@ public class GraphIO {
             throw new GraphError("Ошибка чтения: " + e.getMessage(), e);
         }
     }
+
+    //сохранить граф в бинарном формате (см. BinaryGraphFormat), вершины записываются через toString
+    public static <V> void saveBinary(Graph<V> graph, String filename) {
+        saveBinary(graph.freeze(), filename);
+    }
+
+    public static <V> void saveBinary(CompactGraph<V> graph, String filename) {
+        try {
+            BinaryGraphFormat.save(graph, filename);
+        } catch (IOException e) {
+            throw new GraphError("Ошибка записи файла: " + e.getMessage(), e);
+        }
+    }
+
+    //загрузка бинарного графа: файл отображается в память, рёбра читаются прямо из него без разбора
+    public static <V> CompactGraph<V> loadBinary(String filename, VertexParser<V> parser) {
+        try {
+            return BinaryGraphFormat.load(filename, parser);
+        } catch (IOException e) {
+            throw new GraphError("Ошибка чтения: " + e.getMessage(), e);
+        }
+    }
+
+    //сохранить индекс Contraction Hierarchies рядом с бинарным графом, для которого он построен
+    public static <V> void saveHierarchy(ContractionHierarchy<V> hierarchy, String filename) {
+        try {
+            hierarchy.save(filename);
+        } catch (IOException e) {
+            throw new GraphError("Ошибка записи файла: " + e.getMessage(), e);
+        }
+    }
+
+    //загрузить индекс для графа, обычно загруженного через loadBinary; индекс другого графа не примется
+    public static <V> ContractionHierarchy<V> loadHierarchy(String filename, CompactGraph<V> graph) {
+        try {
+            return ContractionHierarchy.load(filename, graph);
+        } catch (IOException e) {
+            throw new GraphError("Ошибка чтения: " + e.getMessage(), e);
+        }
+    }
+
+    private static int parseHint(String s, long lineNo) {
+        try {
+            int hint = Integer.parseInt(s);
+            if (hint >= 0) return hint;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new GraphError("Строка " + lineNo + ": неверное число вершин в заголовке '" + s + "'");
+    }
+
+    //итоги загрузки: сколько строк и рёбер прочитано и за какое время
+    public static final class LoadStats {
+        private long lines;
+        private long edges;
+        private long nanos;
+
+        public long lines() {
+            return lines; }
+
+        public long edges() {
+            return edges; }
+
+        public double seconds() {
+            return nanos / 1e9; }
+
+        public double linesPerSecond() {
+            return nanos == 0 ? 0 : lines * 1e9 / nanos; }
+    }
+
+    public static <V> Graph<V> loadStreaming(
+            GraphFactory<V> factory,
+            String filename,
+            VertexParser<V> parser
+    ) {
+        return loadStreaming(factory, filename, parser, null);
+    }
+
+    //загрузка в обычный Graph, который сразу создаётся нужного размера
+    public static <V> Graph<V> loadStreaming(String filename, VertexParser<V> parser, LoadStats stats) {
+        GraphFactory<V> presized = new GraphFactory<V>() {
+            public Graph<V> create(boolean directed) {
+                return new Graph<>(directed); }
+            public Graph<V> create(boolean directed, int expectedVertices) {
+                return new Graph<>(directed, expectedVertices); }
+        };
+        return loadStreaming(presized, filename, parser, stats);
+    }
+
+    //быстрая загрузка больших файлов того же формата, что и loadFromFile, в заголовке может стоять ещё и число вершин
+    //байты читаются из FileChannel и разбираются на месте, без строк на каждую строку файла,
+    //имена вершин хранятся в словаре и превращаются в объекты только один раз.
+    //если в заголовке нет подсказки с числом вершин, первый проход считает вершины, чтобы сразу выделить граф нужного размера
+    public static <V> Graph<V> loadStreaming(
+            GraphFactory<V> factory,
+            String filename,
+            VertexParser<V> parser,
+            LoadStats stats
+    ) {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            StreamingLoader<V> loader = new StreamingLoader<>(factory, parser);
+            long size = channel.size();
+            scanLines(channel, 0, size, loader::header);
+            if (!loader.headerSeen) throw new GraphError("Файл пуст");
+            if (!loader.hasHint) {
+                scanLines(channel, 0, size, loader::countNames);
+            }
+            loader.createGraph();
+            scanLines(channel, 0, size, loader::addEdge);
+            if (stats != null) {
+                stats.lines = loader.lines;
+                stats.edges = loader.edges;
+                stats.nanos = System.nanoTime() - started;
+            }
+            return loader.graph;
+        } catch (IOException e) {
+            throw new GraphError("Ошибка чтения: " + e.getMessage(), e);
+        }
+    }
+
+    public static <V> Graph<V> loadParallel(String filename, VertexParser<V> parser, int parallelism, LoadStats stats) {
+        GraphFactory<V> presized = new GraphFactory<V>() {
+            public Graph<V> create(boolean directed) {
+                return new Graph<>(directed); }
+            public Graph<V> create(boolean directed, int expectedVertices) {
+                return new Graph<>(directed, expectedVertices); }
+        };
+        return loadParallel(presized, filename, parser, parallelism, stats);
+    }
+
+    //многопоточная загрузка: файл режется на куски по границам строк, куски разбираются в ForkJoinPool,
+    //каждый поток пишет рёбра в свой буфер со своим словарём имён.
+    //затем буферы вливаются в граф по порядку кусков, поэтому дубликаты и ошибки
+    //обнаруживаются так же, как при последовательной загрузке, с настоящими номерами строк
+    public static <V> Graph<V> loadParallel(
+            GraphFactory<V> factory,
+            String filename,
+            VertexParser<V> parser,
+            int parallelism,
+            LoadStats stats
+    ) {
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        long started = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            StreamingLoader<V> loader = new StreamingLoader<>(factory, parser);
+            scanLines(channel, 0, size, loader::header);
+            if (!loader.headerSeen) throw new GraphError("Файл пуст");
+            long[] bounds = chunkBounds(channel, lineEnd(channel, 0, size), size, parallelism * 4);
+
+            DynamicArray<ForkJoinTask<Chunk>> tasks = new DynamicArray<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                tasks.append(pool.submit(() -> parseChunk(channel, from, to)));
+            }
+            loader.createGraph();
+            long lineBase = 1; //строка заголовка
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = task.join();
+                loader.merge(chunk, lineBase);
+                lineBase += chunk.lines;
+            }
+            if (stats != null) {
+                stats.lines = lineBase;
+                stats.edges = loader.edges;
+                stats.nanos = System.nanoTime() - started;
+            }
+            return loader.graph;
+        } catch (IOException e) {
+            throw new GraphError("Ошибка чтения: " + e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new GraphError("Ошибка чтения: " + e.getCause().getMessage(), e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //позиция сразу после перевода строки, который стоит на from или дальше, либо to
+    private static long lineEnd(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(1 << 12);
+        long position = from;
+        while (position < to) {
+            bb.clear();
+            int read = channel.read(bb, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (bb.get(i) == '\n') return Math.min(to, position + i + 1);
+            }
+            position += read;
+        }
+        return to;
+    }
+
+    //границы кусков [bounds[i], bounds[i + 1]), каждая граница - начало строки
+    private static long[] chunkBounds(FileChannel channel, long from, long to, int chunks) throws IOException {
+        long step = Math.max(1 << 16, (to - from) / chunks + 1);
+        DynamicArray<Long> bounds = new DynamicArray<>();
+        bounds.append(from);
+        long last = from;
+        while (last < to) {
+            long next = last + step >= to ? to : lineEnd(channel, last + step - 1, to);
+            bounds.append(next);
+            last = next;
+        }
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    //рёбра одного куска файла: id имён из локального словаря, вес и номер строки внутри куска
+    private static final class Chunk {
+        final NameTable<Object> names = new NameTable<>(null, 0);
+        final IntDynamicArray from = new IntDynamicArray();
+        final IntDynamicArray to = new IntDynamicArray();
+        final IntDynamicArray weight = new IntDynamicArray();
+        final IntDynamicArray line = new IntDynamicArray();
+        long lines;
+        long errorLine = -1; //первая ошибка разбора в куске
+        String error;
+    }
+
+    private static Chunk parseChunk(FileChannel channel, long from, long to) {
+        Chunk chunk = new Chunk();
+        try {
+            scanLines(channel, from, to, (buf, start, end, lineNo) -> {
+                chunk.lines = lineNo;
+                if (start == end) return true;
+                try {
+                    int t1 = fieldEnd(buf, start, end);
+                    int t2 = fieldEnd(buf, t1 + 1, end);
+                    chunk.weight.append(weightField(buf, t2 + 1, end));
+                    chunk.from.append(chunk.names.intern(buf, start, t1));
+                    chunk.to.append(chunk.names.intern(buf, t1 + 1, t2));
+                    chunk.line.append((int) lineNo);
+                    return true;
+                } catch (GraphError e) {
+                    chunk.errorLine = lineNo;
+                    chunk.error = e.getMessage();
+                    return false;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunk;
+    }
+
+    //обработчик одной строки buf[from, to) без перевода строки, false - прекратить чтение
+    interface LineHandler {
+        boolean line(byte[] buf, int from, int to, long lineNo);
+    }
+
+    //читаем байты [from, to) канала блоками и отдаём обработчику строки прямо из буфера
+    //чтение позиционное, поэтому несколько потоков могут читать разные куски одного канала
+    static void scanLines(FileChannel channel, long from, long to, LineHandler handler) throws IOException {
+        byte[] buf = new byte[(int) Math.min(1 << 20, Math.max(16, to - from))];
+        ByteBuffer bb = ByteBuffer.wrap(buf);
+        int len = 0;
+        long position = from;
+        long lineNo = 0;
+        boolean eof = false;
+        while (!eof) {
+            bb.limit((int) Math.min(buf.length, len + (to - position))).position(len);
+            int read = channel.read(bb, position);
+            if (read <= 0) {
+                eof = true;
+            } else {
+                len += read;
+                position += read;
+            }
+            int pos = 0;
+            while (pos < len) {
+                int nl = pos;
+                while (nl < len && buf[nl] != '\n') nl++;
+                if (nl == len && !eof) break; //строка не дочитана
+                int end = nl;
+                if (end > pos && buf[end - 1] == '\r') end--;
+                if (!handler.line(buf, pos, end, ++lineNo)) return;
+                pos = nl + 1;
+            }
+            pos = Math.min(pos, len);
+            System.arraycopy(buf, pos, buf, 0, len - pos);
+            len -= pos;
+            //строка длиннее буфера - увеличиваем его
+            if (len == buf.length) {
+                byte[] bigger = new byte[buf.length * 2];
+                System.arraycopy(buf, 0, bigger, 0, len);
+                buf = bigger;
+                bb = ByteBuffer.wrap(buf);
+            }
+        }
+    }
+
+    static int indexOf(byte[] buf, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == b) return i;
+        }
+        return -1;
+    }
+
+    //целое число из buf[from, to)
+    static int parseInt(byte[] buf, int from, int to) {
+        boolean negative = from < to && buf[from] == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to) throw new GraphError("вес ребра должен быть целым числом");
+        long value = 0;
+        for (; i < to; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) throw new GraphError("вес ребра должен быть целым числом");
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE + 1L) throw new GraphError("вес ребра слишком большой");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw new GraphError("вес ребра слишком большой");
+        return (int) value;
+    }
+
+    //конец поля, которое начинается с from
+    static int fieldEnd(byte[] buf, int from, int to) {
+        int tab = indexOf(buf, from, to, (byte) '\t');
+        if (tab == -1) {
+            throw new GraphError("ожидалось три поля через табуляцию");
+        }
+        return tab;
+    }
+
+    //вес - третье поле строки, лишние поля после него игнорируются как в loadFromFile
+    static int weightField(byte[] buf, int from, int to) {
+        int end = indexOf(buf, from, to, (byte) '\t');
+        return parseInt(buf, from, end == -1 ? to : end);
+    }
+
+    //состояние потоковой загрузки между проходами
+    private static final class StreamingLoader<V> {
+        private final GraphFactory<V> factory;
+        private final NameTable<V> names;
+        private final IntDynamicArray graphIds = new IntDynamicArray(); //id имени -> id вершины в графе
+        private boolean headerSeen;
+        private boolean directed;
+        private boolean hasHint;
+        private int hint;
+        private Graph<V> graph;
+        private long lines;
+        private long edges;
+
+        StreamingLoader(GraphFactory<V> factory, VertexParser<V> parser) {
+            this.factory = factory;
+            this.names = new NameTable<>(parser, 0);
+        }
+
+        //первая строка: тип графа и, возможно, число вершин; всё, кроме directed, - неориентированный
+        boolean header(byte[] buf, int from, int to, long lineNo) {
+            while (from < to && (buf[from] == '\t' || buf[from] == ' ')) from++;
+            int sep = from;
+            while (sep < to && buf[sep] != '\t' && buf[sep] != ' ') sep++;
+            String type = new String(buf, from, sep - from, StandardCharsets.US_ASCII);
+            headerSeen = true;
+            directed = type.equals("directed");
+            while (sep < to && (buf[sep] == '\t' || buf[sep] == ' ')) sep++;
+            if (sep < to) {
+                hasHint = true;
+                hint = parseHint(new String(buf, sep, to - sep, StandardCharsets.US_ASCII), lineNo);
+            }
+            return false;
+        }
+
+        //первый проход: только регистрируем имена, чтобы узнать число вершин
+        boolean countNames(byte[] buf, int from, int to, long lineNo) {
+            if (lineNo == 1 || from == to) return true;
+            int t1;
+            int t2;
+            try {
+                t1 = fieldEnd(buf, from, to);
+                t2 = fieldEnd(buf, t1 + 1, to);
+            } catch (GraphError e) {
+                throw new GraphError("Строка " + lineNo + ": " + e.getMessage(), e);
+            }
+            names.intern(buf, from, t1);
+            names.intern(buf, t1 + 1, t2);
+            return true;
+        }
+
+        void createGraph() {
+            graph = factory.create(directed, hasHint ? hint : names.size());
+            for (int id = graphIds.size(); id < names.size(); id++) {
+                graphIds.append(vertexId(names.vertex(id)));
+            }
+        }
+
+        private int vertexId(V v) {
+            //разные имена могут дать одну вершину, например "01" и "1" для чисел
+            int id = graph.idOf(v);
+            if (id == -1) {
+                graph.addVertex(v);
+                id = graph.idOf(v);
+            }
+            return id;
+        }
+
+        private int graphId(byte[] buf, int from, int to) {
+            int nameId = names.intern(buf, from, to);
+            if (nameId == graphIds.size()) {
+                graphIds.append(vertexId(names.vertex(nameId)));
+            }
+            return graphIds.get(nameId);
+        }
+
+        //влить разобранный кусок, lineBase - номер строки перед началом куска
+        void merge(Chunk chunk, long lineBase) {
+            int[] local = new int[chunk.names.size()]; //id имени в куске -> id вершины в графе
+            for (int i = 0; i < local.length; i++) {
+                local[i] = -1;
+            }
+            for (int i = 0; i < chunk.from.size(); i++) {
+                long lineNo = lineBase + chunk.line.get(i);
+                try {
+                    int u = mergedId(chunk, local, chunk.from.get(i));
+                    int v = mergedId(chunk, local, chunk.to.get(i));
+                    graph.addEdgeById(u, v, chunk.weight.get(i));
+                } catch (GraphError e) {
+                    throw new GraphError("Строка " + lineNo + ": " + e.getMessage(), e);
+                }
+                edges++;
+            }
+            if (chunk.error != null) {
+                throw new GraphError("Строка " + (lineBase + chunk.errorLine) + ": " + chunk.error);
+            }
+        }
+
+        private int mergedId(Chunk chunk, int[] local, int nameId) {
+            if (local[nameId] == -1) {
+                local[nameId] = vertexId(names.vertex(names.intern(chunk.names, nameId)));
+            }
+            return local[nameId];
+        }
+
+        boolean addEdge(byte[] buf, int from, int to, long lineNo) {
+            lines = lineNo;
+            if (lineNo == 1 || from == to) return true;
+            try {
+                int t1 = fieldEnd(buf, from, to);
+                int t2 = fieldEnd(buf, t1 + 1, to);
+                int weight = weightField(buf, t2 + 1, to);
+                int u = graphId(buf, from, t1);
+                int v = graphId(buf, t1 + 1, t2);
+                graph.addEdgeById(u, v, weight);
+            } catch (GraphError e) {
+                throw new GraphError("Строка " + lineNo + ": " + e.getMessage(), e);
+            }
+            edges++;
+            return true;
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package graph;
+//подписчик на изменения Graph, методы вызываются в потоке, который меняет граф, сразу после изменения
+//при удалении вершины сначала приходит edgeRemoved для каждого её ребра, затем vertexRemoved
+public interface GraphListener<V> {
+    default void vertexAdded(V v) {}
+
+    default void vertexRemoved(V v) {}
+
+    //в неориентированном графе ребро приходит один раз, в том порядке концов, в котором его добавили или удалили
+    default void edgeAdded(V from, V to, int weight) {}
+
+    default void edgeRemoved(V from, V to, int weight) {}
+}
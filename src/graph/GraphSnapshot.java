@@ -0,0 +1,219 @@
+package graph;
+import exceptions.GraphError;
+import structures.BitSet;
+import structures.DynamicArray;
+import structures.IntDynamicArray;
+import structures.VersionedArray;
+import structures.VersionedHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+//неизменяемый снимок Graph на момент вызова Graph.snapshot()
+//id вершин те же, что были в графе в момент снимка, рёбра каждой вершины - замороженный массив.
+//снимок можно обходить из других потоков, пока исходный граф продолжает меняться
+public class GraphSnapshot<V> implements IndexedGraph<V> {
+    private final boolean directed;
+    private final VersionedHashMap.View<V, Integer> ids;
+    private final VersionedArray.View<V> names;
+    private final VersionedArray.View<Edge<V>[]> adj;
+
+    private GraphSnapshot(boolean directed, VersionedHashMap.View<V, Integer> ids,
+                          VersionedArray.View<V> names, VersionedArray.View<Edge<V>[]> adj) {
+        this.directed = directed;
+        this.ids = ids;
+        this.names = names;
+        this.adj = adj;
+    }
+
+    public boolean isDirected() {
+        return directed; }
+
+    public int vertexCount() {
+        return ids.size(); }
+
+    public int idBound() {
+        return names.size(); }
+
+    public int idOf(V v) {
+        Integer id = ids.tryGet(v);
+        return id == null ? -1 : id;
+    }
+
+    public V vertexAt(int id) {
+        return names.get(id); }
+
+    public int degree(int id) {
+        return adj.get(id).length; }
+
+    public int targetAt(int id, int k) {
+        return adj.get(id)[k].toId(); }
+
+    public int weightAt(int id, int k) {
+        return adj.get(id)[k].getWeight(); }
+
+    public boolean containsVertex(V v) {
+        return ids.containsKey(v); }
+
+    private int ensureVertexExists(V v) {
+        Integer id = ids.tryGet(v);
+        if (id == null) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    //вершины в порядке id
+    public Iterable<V> vertices() {
+        return () -> new Iterator<V>() {
+            private int id = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (id < names.size() && names.get(id) == null) id++;
+                return id < names.size();
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет вершин");
+                }
+                return names.get(id++);
+            }
+        };
+    }
+
+    public DynamicArray<Edge<V>> edgesFrom(V v) {
+        Edge<V>[] edges = adj.get(ensureVertexExists(v));
+        DynamicArray<Edge<V>> result = new DynamicArray<>(Math.max(1, edges.length));
+        for (Edge<V> e : edges) result.append(e);
+        return result;
+    }
+
+    public DynamicArray<V> getAdjacent(V v) {
+        Edge<V>[] edges = adj.get(ensureVertexExists(v));
+        DynamicArray<V> result = new DynamicArray<>(Math.max(1, edges.length));
+        for (Edge<V> e : edges) result.append(e.getTo());
+        return result;
+    }
+
+    public boolean hasEdge(V from, V to) {
+        int u = idOf(from);
+        int v = idOf(to);
+        return u != -1 && v != -1 && find(u, v) != null;
+    }
+
+    private Edge<V> find(int from, int to) {
+        for (Edge<V> e : adj.get(from)) {
+            if (e.toId() == to) return e;
+        }
+        return null;
+    }
+
+    public DynamicArray<V> dfsOrder(V start) {
+        return Traversals.dfsOrder(this, ensureVertexExists(start), null);
+    }
+
+    public DynamicArray<V> bfsOrder(V start) {
+        return Traversals.bfsOrder(this, ensureVertexExists(start), null);
+    }
+
+    //BFS с посетителем: он видит вершины с родителем и глубиной и рёбра, может отсечь поддерево (SKIP_SUBTREE)
+    //или остановить обход (STOP). порядок обхода не собирается. true, если обход остановлен посетителем
+    public boolean bfs(V start, TraversalVisitor<V> visitor) {
+        if (visitor == null) throw new GraphError("Посетитель не может быть пустым");
+        return Traversals.bfs(this, ensureVertexExists(start), visitor);
+    }
+
+    //DFS с посетителем, рёбра каждой вершины просматриваются по порядку, как в рекурсивном DFS
+    public boolean dfs(V start, TraversalVisitor<V> visitor) {
+        if (visitor == null) throw new GraphError("Посетитель не может быть пустым");
+        return Traversals.dfs(this, ensureVertexExists(start), visitor);
+    }
+
+    //есть ли путь из start в goal не длиннее maxHops рёбер, дальше maxHops обход не идёт
+    public boolean isReachableWithin(V start, V goal, int maxHops) {
+        if (maxHops < 0) throw new GraphError("Число рёбер не может быть отрицательным");
+        return Traversals.withinHops(this, ensureVertexExists(start), ensureVertexExists(goal), maxHops);
+    }
+
+    //ленивые обходы: вершины выдаются по одной, в памяти только граница (стек) и посещённые,
+    //обход можно оборвать в любой момент
+    public Iterator<V> bfsIterator(V start) {
+        return Traversals.bfsIterator(this, ensureVertexExists(start));
+    }
+
+    public Iterator<V> dfsIterator(V start) {
+        return Traversals.dfsIterator(this, ensureVertexExists(start));
+    }
+
+    //то же потоком, limit()/takeWhile() останавливают обход
+    public Stream<V> bfsStream(V start) {
+        return Traversals.stream(bfsIterator(start));
+    }
+
+    public Stream<V> dfsStream(V start) {
+        return Traversals.stream(dfsIterator(start));
+    }
+
+    public DynamicArray<V> shortestPath(V start, V goal) {
+        int s = ensureVertexExists(start);
+        int g = ensureVertexExists(goal);
+        return Traversals.shortestPath(this, s, g, null);
+    }
+
+    //посчитать суммарный вес пути
+    public int pathWeight(DynamicArray<V> path) {
+        int total = 0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            int to = idOf(path.get(i + 1));
+            Edge<V> e = to == -1 ? null : find(ensureVertexExists(path.get(i)), to);
+            if (e == null) {
+                throw new GraphError("Не найдено ребро " +
+                        path.get(i) + " -> " + path.get(i + 1) + " при подсчёте длины пути");
+            }
+            total += e.getWeight();
+        }
+        return total;
+    }
+
+    //версионная копия графа, из которой берутся снимки
+    //граф только отмечает изменённые id, а копия догоняет граф при следующем снимке,
+    //поэтому снимок стоит O(изменений с прошлого снимка), а не O(V + E)
+    static final class Builder<V> {
+        private final VersionedHashMap<V, Integer> ids = new VersionedHashMap<>();
+        private final VersionedArray<V> names = new VersionedArray<>();
+        private final VersionedArray<Edge<V>[]> adj = new VersionedArray<>();
+        private final BitSet dirty = new BitSet();
+        private final IntDynamicArray dirtyIds = new IntDynamicArray();
+
+        Builder(Graph<V> graph) {
+            for (int id = 0; id < graph.idBound(); id++) touch(id);
+        }
+
+        void touch(int id) {
+            if (dirty.add(id)) dirtyIds.append(id);
+        }
+
+        GraphSnapshot<V> snapshot(Graph<V> graph) {
+            while (names.size() < graph.idBound()) {
+                names.append(null);
+                adj.append(null);
+            }
+            for (int i = 0; i < dirtyIds.size(); i++) {
+                int id = dirtyIds.get(i);
+                dirty.clear(id);
+                V old = names.get(id);
+                V current = graph.vertexAt(id);
+                //имя могло уже переехать на другой id, обработанный раньше
+                Integer oldId = old == null ? null : ids.tryGet(old);
+                if (oldId != null && oldId == id) ids.remove(old);
+                if (current != null) ids.put(current, id);
+                names.set(id, current);
+                adj.set(id, current == null ? null : graph.frozenEdges(id));
+            }
+            dirtyIds.clear();
+            return new GraphSnapshot<>(graph.isDirected(), ids.snapshot(), names.snapshot(), adj.snapshot());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package graph;
+import structures.IndexedHeap;
+import structures.IntDynamicArray;
+import java.util.Arrays;
+//предобработка Contraction Hierarchies: вершины по одной удаляются (стягиваются) из рабочего графа
+//в порядке важности, и для каждой пары соседей u -> v -> x, между которыми нет пути короче в обход v
+//(поиск свидетеля), добавляется ребро-ярлык u -> x весом w(u, v) + w(v, x).
+//рёбра вершины к ещё не стянутым соседям в момент стягивания становятся её рёбрами вверх (исходящие)
+//и вниз (входящие) в иерархии. неориентированный граф обрабатывается как пара встречных дуг
+final class HierarchyBuilder {
+    //дальше свидетеля не ищем, лишний ярлык не портит ответ. для оценки приоритета хватает короткого поиска
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int SIMULATE_SETTLE_LIMIT = 32;
+
+    //список дуг рабочего графа, на одну пару вершин хранится одна дуга с минимальным весом
+    static final class ArcList {
+        int[] to = new int[4];
+        long[] weight = new long[4];
+        int[] middle = new int[4]; //стянутая вершина, через которую идёт ярлык, -1 у исходного ребра
+        int size;
+
+        int indexOf(int v) {
+            for (int i = 0; i < size; i++) if (to[i] == v) return i;
+            return -1;
+        }
+
+        //true, если дуга добавлена или стала легче
+        boolean add(int v, long w, int mid) {
+            int i = indexOf(v);
+            if (i != -1) {
+                if (w >= weight[i]) return false;
+                weight[i] = w;
+                middle[i] = mid;
+                return true;
+            }
+            if (size == to.length) {
+                to = Arrays.copyOf(to, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            to[size] = v;
+            weight[size] = w;
+            middle[size] = mid;
+            size++;
+            return true;
+        }
+
+        void remove(int v) {
+            int i = indexOf(v);
+            if (i == -1) return;
+            size--;
+            to[i] = to[size];
+            weight[i] = weight[size];
+            middle[i] = middle[size];
+        }
+    }
+
+    private final int n;
+    private final ArcList[] out;
+    private final ArcList[] in;
+    private final boolean[] contracted;
+    private final int[] deletedNeighbours;
+    private final int[] level; //1 + наибольший уровень стянутых соседей
+    final int[] rank;
+    final ArcList[] up;   //v -> выше по рангу
+    final ArcList[] down; //выше по рангу -> v, to - начало дуги
+    long shortcuts;
+
+    //поиск свидетеля: массивы на все вершины, после поиска сбрасываются только затронутые
+    private final long[] witnessDist;
+    private final int[] targetMark;  //вершина - ещё не найденная цель текущего поиска, если равна searchId
+    private int searchId;
+    private final IntDynamicArray touched = new IntDynamicArray();
+    private final IndexedHeap witnessHeap;
+
+    HierarchyBuilder(CompactGraph<?> graph) {
+        n = graph.vertexCount();
+        out = new ArcList[n];
+        in = new ArcList[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = new ArcList();
+            in[v] = new ArcList();
+        }
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                int x = graph.target(e);
+                if (x == v) continue; //петли на кратчайшие пути не влияют
+                out[v].add(x, graph.weight(e), -1);
+                in[x].add(v, graph.weight(e), -1);
+            }
+        }
+        witnessDist = new long[n];
+        Arrays.fill(witnessDist, Long.MAX_VALUE);
+        targetMark = new int[n];
+        witnessHeap = new IndexedHeap(Math.max(1, n)); //IndexedHeap не принимает нулевую ёмкость
+        contracted = new boolean[n];
+        deletedNeighbours = new int[n];
+        level = new int[n];
+        rank = new int[n];
+        up = new ArcList[n];
+        down = new ArcList[n];
+    }
+
+    void build() {
+        IndexedHeap queue = new IndexedHeap(Math.max(1, n));
+        for (int v = 0; v < n; v++) queue.offer(v, priority(v));
+        int next = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.pollMin();
+            //ленивое обновление: приоритет мог вырасти после стягивания соседей
+            double p = priority(v);
+            if (!queue.isEmpty() && p > queue.priorityOf(queue.peekMin())) {
+                queue.offer(v, p);
+                continue;
+            }
+            contract(v, false);
+            rank[v] = next++;
+            for (int i = 0; i < up[v].size; i++) touchNeighbour(up[v].to[i], v);
+            for (int i = 0; i < down[v].size; i++) touchNeighbour(down[v].to[i], v);
+        }
+    }
+
+    //приоритет соседа не пересчитываем сразу, это сделает ленивая проверка при снятии с очереди
+    private void touchNeighbour(int u, int v) {
+        deletedNeighbours[u]++;
+        level[u] = Math.max(level[u], level[v] + 1);
+    }
+
+    //удвоенная разность рёбер (сколько ярлыков добавится минус сколько рёбер уйдёт), число уже стянутых соседей
+    //и уровень, два последних слагаемых равномерно распределяют стягивание по графу
+    private double priority(int v) {
+        int added = contract(v, true);
+        return 2 * (added - out[v].size - in[v].size) + deletedNeighbours[v] + level[v];
+    }
+
+    //стянуть v или только посчитать ярлыки (simulate)
+    private int contract(int v, boolean simulate) {
+        int added = 0;
+        ArcList ins = in[v];
+        ArcList outs = out[v];
+        for (int i = 0; i < ins.size; i++) {
+            int u = ins.to[i];
+            long w1 = ins.weight[i];
+            long limit = -1;
+            for (int j = 0; j < outs.size; j++) {
+                if (outs.to[j] != u) limit = Math.max(limit, w1 + outs.weight[j]);
+            }
+            if (limit == -1) continue; //кроме u соседей нет
+            witnessSearch(u, v, outs, limit, simulate ? SIMULATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+            for (int j = 0; j < outs.size; j++) {
+                int x = outs.to[j];
+                if (x == u) continue;
+                long through = w1 + outs.weight[j];
+                if (witnessDist[x] <= through) continue;
+                added++;
+                if (!simulate && out[u].add(x, through, v)) {
+                    in[x].add(u, through, v);
+                    shortcuts++;
+                }
+            }
+        }
+        resetWitness();
+        if (!simulate) {
+            contracted[v] = true;
+            up[v] = outs;
+            down[v] = ins;
+            for (int i = 0; i < outs.size; i++) in[outs.to[i]].remove(v);
+            for (int i = 0; i < ins.size; i++) out[ins.to[i]].remove(v);
+        }
+        return added;
+    }
+
+    //Дейкстра от u по рабочему графу без вершины skip, не дальше limit
+    //останавливается, когда сняты с кучи все концы targets или снято settleLimit вершин
+    private void witnessSearch(int u, int skip, ArcList targets, long limit, int settleLimit) {
+        resetWitness();
+        searchId++;
+        int remaining = 0;
+        for (int j = 0; j < targets.size; j++) {
+            int x = targets.to[j];
+            if (x != u && targetMark[x] != searchId) {
+                targetMark[x] = searchId;
+                remaining++;
+            }
+        }
+        reach(u, 0);
+        int settled = 0;
+        while (!witnessHeap.isEmpty() && remaining > 0 && settled++ < settleLimit) {
+            int a = witnessHeap.pollMin();
+            long da = witnessDist[a];
+            if (da > limit) break;
+            if (targetMark[a] == searchId) {
+                targetMark[a] = 0;
+                remaining--;
+            }
+            ArcList arcs = out[a];
+            for (int i = 0; i < arcs.size; i++) {
+                int b = arcs.to[i];
+                if (b != skip && da + arcs.weight[i] < witnessDist[b]) reach(b, da + arcs.weight[i]);
+            }
+        }
+    }
+
+    private void reach(int v, long d) {
+        if (witnessDist[v] == Long.MAX_VALUE) touched.append(v);
+        witnessDist[v] = d;
+        witnessHeap.offer(v, d);
+    }
+
+    private void resetWitness() {
+        for (int i = 0; i < touched.size(); i++) witnessDist[touched.get(i)] = Long.MAX_VALUE;
+        touched.clear();
+        witnessHeap.clear();
+    }
+}
@@ -0,0 +1,117 @@
+package graph;
+import exceptions.GraphError;
+import structures.IntDynamicArray;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+//расстояния в рёбрах от многих источников: строка i - массив id -> число рёбер от i-го источника, -1 если недостижима
+//считается пачками по 64 источника одним MS-BFS, каждое ребро просматривается один раз на пачку, а не на источник.
+//результат относится к графу на момент расчёта, после изменения графа его нужно пересчитать
+public class HopDistances<V> {
+    private final IndexedGraph<V> graph;
+    private final int[] sources;
+    private final int[][] rows;
+
+    private HopDistances(IndexedGraph<V> graph, int[] sources, int[][] rows) {
+        this.graph = graph;
+        this.sources = sources;
+        this.rows = rows;
+    }
+
+    //матрица расстояний от всех sources, память - sources * idBound * 4 байта
+    static <V> HopDistances<V> run(IndexedGraph<V> g, Iterable<V> sources, int parallelism) {
+        int[] ids = ids(g, sources);
+        int[][] rows = new int[ids.length][];
+        forEachBatch(g, ids, parallelism, (i, row) -> rows[i] = row);
+        return new HopDistances<>(g, ids, rows);
+    }
+
+    //то же без общей матрицы: consumer получает источник и его строку, как только готова пачка,
+    //в памяти одновременно не больше 64 строк (если consumer их не хранит)
+    static <V> void stream(IndexedGraph<V> g, Iterable<V> sources, int parallelism, BiConsumer<V, int[]> consumer) {
+        if (consumer == null) throw new GraphError("Получатель результатов не может быть пустым");
+        int[] ids = ids(g, sources);
+        forEachBatch(g, ids, parallelism, (i, row) -> consumer.accept(g.vertexAt(ids[i]), row));
+    }
+
+    private interface RowSink {
+        void accept(int index, int[] row);
+    }
+
+    private static <V> int[] ids(IndexedGraph<V> g, Iterable<V> sources) {
+        if (sources == null) throw new GraphError("Список источников не может быть пустым");
+        IntDynamicArray ids = new IntDynamicArray();
+        for (V v : sources) {
+            int id = g.idOf(v);
+            if (id == -1) {
+                throw new GraphError("Вершина '" + v + "' не существует в графе");
+            }
+            ids.append(id);
+        }
+        return ids.toArray();
+    }
+
+    private static void forEachBatch(IndexedGraph<?> g, int[] sources, int parallelism, RowSink sink) {
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        if (sources.length == 0) return;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Csr out = Csr.of(g, pool);
+            Csr in = out.reverse();
+            int n = out.size();
+            for (int from = 0; from < sources.length; from += MultiSourceBfs.BATCH) {
+                int count = Math.min(MultiSourceBfs.BATCH, sources.length - from);
+                int[][] rows = new int[count][n];
+                for (int[] row : rows) Arrays.fill(row, -1);
+                MultiSourceBfs.batch(out, in, sources, from, count, rows, pool);
+                for (int i = 0; i < count; i++) sink.accept(from + i, rows[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int ensureVertexExists(V v) {
+        int id = graph.idOf(v);
+        if (id == -1 || id >= rows[0].length) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= sources.length) {
+            throw new GraphError("Источника с номером " + i + " нет, всего источников " + sources.length);
+        }
+    }
+
+    public int sourceCount() {
+        return sources.length;
+    }
+
+    public V source(int i) {
+        checkIndex(i);
+        return graph.vertexAt(sources[i]);
+    }
+
+    //число рёбер от i-го источника до target, -1 если недостижима
+    public int distance(int i, V target) {
+        checkIndex(i);
+        return rows[i][ensureVertexExists(target)];
+    }
+
+    //то же по самой вершине-источнику, она должна быть среди источников
+    public int distance(V source, V target) {
+        int s = graph.idOf(source);
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] == s) return distance(i, target);
+        }
+        throw new GraphError("Вершина '" + source + "' не среди источников");
+    }
+
+    //копия строки i-го источника: id -> число рёбер, -1 у недостижимых и свободных id
+    public int[] row(int i) {
+        checkIndex(i);
+        return rows[i].clone();
+    }
+}
@@ -0,0 +1,32 @@
+package graph;
+//граф, вершины которого пронумерованы целыми id
+//через этот интерфейс алгоритмы работают одинаково с Graph и CompactGraph, не трогая объекты вершин
+public interface IndexedGraph<V> {
+    boolean isDirected();
+
+    int vertexCount();
+
+    //все id меньше idBound, часть id может быть свободна после удаления вершин
+    int idBound();
+
+    //id вершины или -1, если её нет
+    int idOf(V v);
+
+    //вершина по id или null, если id свободен
+    V vertexAt(int id);
+
+    //количество исходящих рёбер
+    int degree(int id);
+
+    //id конца k-го исходящего ребра
+    int targetAt(int id, int k);
+
+    //вес k-го исходящего ребра
+    int weightAt(int id, int k);
+
+    //номер состояния графа, меняется при каждом изменении; у неизменяемых графов всегда 0
+    //по нему запомненные результаты обходов понимают, что граф поменялся
+    default long version() {
+        return 0;
+    }
+}
@@ -0,0 +1,8 @@
+package graph;
+//как выбирать опорные вершины для Landmarks
+public enum LandmarkSelection {
+    //первая - вершина наибольшей степени, каждая следующая - самая далёкая от уже выбранных
+    FARTHEST,
+    //вершины наибольшей степени
+    DEGREE
+}
@@ -0,0 +1,184 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.IndexedHeap;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleBiFunction;
+//оценки расстояний через опорные вершины (ALT: A*, landmarks, triangle inequality)
+//для k опорных вершин L заранее считаются d(L, v) и d(v, L) до всех вершин, по неравенству треугольника
+//d(u, v) >= d(L, v) - d(L, u) и d(u, v) >= d(u, L) - d(v, L), d(u, v) <= d(u, L) + d(L, v).
+//нижняя оценка - допустимая и монотонная эвристика для A*.
+//таблицы - int[idBound * k] по вершинам (у неориентированного графа одна, у ориентированного две),
+//то есть k * V * 4 байта на направление. после изменения графа оценки нужно построить заново
+public class Landmarks<V> implements ToDoubleBiFunction<V, V> {
+    private static final int UNKNOWN = Integer.MAX_VALUE; //недостижима или расстояние не влезает в int
+
+    private final IndexedGraph<V> graph;
+    private final int k;
+    private final int[] landmarks;
+    private final int[] from; //from[v * k + i] = d(landmarks[i], v)
+    private final int[] to;   //to[v * k + i] = d(v, landmarks[i]), у неориентированного графа тот же массив
+
+    private Landmarks(IndexedGraph<V> graph, int[] landmarks, int[] from, int[] to) {
+        this.graph = graph;
+        this.k = landmarks.length;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    //расстояния от каждой опорной вершины считает многопоточный delta-stepping
+    static <V> Landmarks<V> build(IndexedGraph<V> g, int count, LandmarkSelection selection, int parallelism) {
+        if (count <= 0) throw new GraphError("Число опорных вершин должно быть положительным");
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        if (g.vertexCount() == 0) throw new GraphError("Граф пуст");
+        int k = Math.min(count, g.vertexCount());
+        int n = g.idBound();
+        if ((long) n * k > Integer.MAX_VALUE) throw new GraphError("Таблица опорных вершин не помещается в массив");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Csr out = Csr.of(g, pool);
+            Csr in = out.reverse();
+            int delta = DeltaStepping.defaultDelta(out, g.vertexCount());
+            int[] chosen = selection == LandmarkSelection.DEGREE ? topDegree(g, out, in, k) : new int[k];
+            int[] from = new int[n * k];
+            int[] to = g.isDirected() ? new int[n * k] : from;
+            long[] nearest = new long[n]; //расстояние до ближайшей выбранной, для FARTHEST
+            Arrays.fill(nearest, Long.MAX_VALUE);
+            for (int i = 0; i < k; i++) {
+                if (selection == LandmarkSelection.FARTHEST) {
+                    chosen[i] = i == 0 ? topDegree(g, out, in, 1)[0] : farthest(g, nearest, chosen, i);
+                }
+                long[] forward = DeltaStepping.distances(out, chosen[i], delta, pool);
+                long[] backward = g.isDirected() ? DeltaStepping.distances(in, chosen[i], delta, pool) : forward;
+                for (int v = 0; v < n; v++) {
+                    from[v * k + i] = clamp(forward[v]);
+                    if (g.isDirected()) to[v * k + i] = clamp(backward[v]);
+                    long d = Math.min(forward[v], backward[v]);
+                    nearest[v] = Math.min(nearest[v], d);
+                }
+            }
+            return new Landmarks<>(g, chosen, from, to);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int clamp(long d) {
+        return d >= UNKNOWN ? UNKNOWN : (int) d;
+    }
+
+    //k вершин наибольшей степени (исходящие плюс входящие), через кучу на k элементов
+    private static int[] topDegree(IndexedGraph<?> g, Csr out, Csr in, int k) {
+        IndexedHeap heap = new IndexedHeap(k + 1);
+        for (int v = 0; v < out.size(); v++) {
+            if (g.vertexAt(v) == null) continue;
+            heap.offer(v, out.degree(v) + (g.isDirected() ? in.degree(v) : 0));
+            if (heap.size() > k) heap.pollMin();
+        }
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) result[i] = heap.pollMin();
+        return result;
+    }
+
+    //вершина, дальше всех от выбранных chosen[0, count); недостижимые от всех выбранных идут первыми,
+    //так опорные вершины попадают во все компоненты
+    private static int farthest(IndexedGraph<?> g, long[] nearest, int[] chosen, int count) {
+        int best = -1;
+        for (int v = 0; v < nearest.length; v++) {
+            if (g.vertexAt(v) == null || (best != -1 && nearest[v] <= nearest[best])) continue;
+            boolean taken = false;
+            for (int i = 0; i < count && !taken; i++) taken = chosen[i] == v;
+            if (!taken) best = v;
+        }
+        return best;
+    }
+
+    public int count() {
+        return k;
+    }
+
+    public DynamicArray<V> landmarks() {
+        DynamicArray<V> result = new DynamicArray<>(k);
+        for (int id : landmarks) result.append(graph.vertexAt(id));
+        return result;
+    }
+
+    //нижняя оценка d(u, v) по id
+    long lowerBound(int u, int v) {
+        long best = 0;
+        int bu = u * k;
+        int bv = v * k;
+        for (int i = 0; i < k; i++) {
+            int fu = from[bu + i];
+            int fv = from[bv + i];
+            if (fu != UNKNOWN && fv != UNKNOWN) best = Math.max(best, (long) fv - fu);
+            int tu = to[bu + i];
+            int tv = to[bv + i];
+            if (tu != UNKNOWN && tv != UNKNOWN) best = Math.max(best, (long) tu - tv);
+        }
+        return best;
+    }
+
+    //верхняя оценка d(u, v) по id, -1 если ни одна опорная вершина не связывает u и v
+    long upperBound(int u, int v) {
+        long best = -1;
+        for (int i = 0; i < k; i++) {
+            int tu = to[u * k + i];
+            int fv = from[v * k + i];
+            if (tu == UNKNOWN || fv == UNKNOWN) continue;
+            long through = (long) tu + fv;
+            if (best == -1 || through < best) best = through;
+        }
+        return best;
+    }
+
+    private int requireId(V v) {
+        int id = graph.idOf(v);
+        if (id == -1 || id * (long) k >= from.length) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    //оценка d(u, v) снизу и сверху
+    public static final class Estimate {
+        private final long lower;
+        private final long upper;
+
+        Estimate(long lower, long upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        public long lower() {
+            return lower; }
+
+        //-1, если верхней оценки нет
+        public long upper() {
+            return upper; }
+    }
+
+    //оценка за O(k) без поиска по графу
+    public Estimate estimateDistance(V u, V v) {
+        int a = requireId(u);
+        int b = requireId(v);
+        return new Estimate(lowerBound(a, b), upperBound(a, b));
+    }
+
+    //нижняя оценка как эвристика для shortestPath(start, goal, heuristic) любого графа с теми же вершинами
+    @Override
+    public double applyAsDouble(V v, V goal) {
+        return lowerBound(requireId(v), requireId(goal));
+    }
+
+    //A* по графу, для которого построены оценки, эвристика считается прямо по id
+    public DynamicArray<V> shortestPath(V start, V goal, SearchStats stats) {
+        return Traversals.astarById(graph, requireId(start), requireId(goal), this::lowerBound, stats);
+    }
+
+    public DynamicArray<V> shortestPath(V start, V goal) {
+        return shortestPath(start, goal, null);
+    }
+}
@@ -0,0 +1,116 @@
+package graph;
+import exceptions.GraphError;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+//квадратная матрица long по строкам: в куче одним массивом или в файле, отображённом в память кусками по 1 ГиБ
+//(один MappedByteBuffer не больше 2 ГиБ). читается и пишется отрезками строк, разные потоки могут
+//одновременно писать в непересекающиеся отрезки
+final class LongMatrix implements Closeable {
+    private static final int SEGMENT_BITS = 27; //2^27 long = 1 ГиБ
+    private static final long SEGMENT = 1L << SEGMENT_BITS;
+
+    private final int n;
+    private final long[] heap;
+    private final LongBuffer[] segments;
+    private final MappedByteBuffer[] mapped;
+    private final FileChannel channel;
+
+    private LongMatrix(int n, long[] heap, MappedByteBuffer[] mapped, FileChannel channel) {
+        this.n = n;
+        this.heap = heap;
+        this.mapped = mapped;
+        this.channel = channel;
+        if (mapped == null) {
+            segments = null;
+        } else {
+            segments = new LongBuffer[mapped.length];
+            for (int s = 0; s < mapped.length; s++) segments[s] = mapped[s].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+    }
+
+    static LongMatrix inHeap(int n) {
+        long cells = (long) n * n;
+        if (cells > Integer.MAX_VALUE - 8) {
+            throw new GraphError("Матрица " + n + " x " + n + " не помещается в массив, нужна матрица в файле");
+        }
+        return new LongMatrix(n, new long[(int) cells], null, null);
+    }
+
+    //файл создаётся заново, порядок байт little-endian, как в BinaryGraphFormat
+    static LongMatrix mapped(int n, String filename) throws IOException {
+        long cells = (long) n * n;
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((cells + SEGMENT - 1) / SEGMENT)];
+            for (int s = 0; s < mapped.length; s++) {
+                long from = s * SEGMENT;
+                long length = Math.min(SEGMENT, cells - from);
+                mapped[s] = channel.map(FileChannel.MapMode.READ_WRITE, from * Long.BYTES, length * Long.BYTES);
+            }
+            return new LongMatrix(n, null, mapped, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int size() {
+        return n;
+    }
+
+    long get(int row, int col) {
+        long cell = (long) row * n + col;
+        if (heap != null) return heap[(int) cell];
+        return segments[(int) (cell >>> SEGMENT_BITS)].get((int) (cell & (SEGMENT - 1)));
+    }
+
+    //прочитать length ячеек строки row начиная со столбца col
+    void read(int row, int col, long[] dst, int offset, int length) {
+        long cell = (long) row * n + col;
+        if (heap != null) {
+            System.arraycopy(heap, (int) cell, dst, offset, length);
+            return;
+        }
+        while (length > 0) {
+            int s = (int) (cell >>> SEGMENT_BITS);
+            int at = (int) (cell & (SEGMENT - 1));
+            int part = (int) Math.min(length, SEGMENT - at);
+            segments[s].get(at, dst, offset, part);
+            cell += part;
+            offset += part;
+            length -= part;
+        }
+    }
+
+    void write(int row, int col, long[] src, int offset, int length) {
+        long cell = (long) row * n + col;
+        if (heap != null) {
+            System.arraycopy(src, offset, heap, (int) cell, length);
+            return;
+        }
+        while (length > 0) {
+            int s = (int) (cell >>> SEGMENT_BITS);
+            int at = (int) (cell & (SEGMENT - 1));
+            int part = (int) Math.min(length, SEGMENT - at);
+            segments[s].put(at, src, offset, part);
+            cell += part;
+            offset += part;
+            length -= part;
+        }
+    }
+
+    //сбросить отображённые куски на диск и закрыть файл, сами отображения освободит сборщик мусора
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        for (MappedByteBuffer buffer : mapped) buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,96 @@
+package graph;
+import structures.IntDynamicArray;
+import java.util.concurrent.ForkJoinPool;
+//BFS сразу от пачки до 64 источников (MS-BFS): у каждой вершины слово, где бит i значит
+//"вершина достигнута из i-го источника", поэтому за один просмотр ребра уровень продвигается для всех источников.
+//пока фронтир мал, уровень раскрывается сверху вниз по исходящим рёбрам фронтира (один поток),
+//когда рёбер фронтира много - снизу вверх: каждая вершина собирает OR фронтира входящих соседей, куски id параллельно
+final class MultiSourceBfs {
+    private MultiSourceBfs() {}
+
+    static final int BATCH = Long.SIZE;
+    private static final int ALPHA = 14; //снизу вверх, когда рёбер фронтира больше рёбер графа / ALPHA
+    private static final int GRAIN = 1 << 12;
+
+    //расстояния в рёбрах от sources[from..from + count) в rows[0..count), строки заранее заполнены -1
+    static void batch(Csr out, Csr in, int[] sources, int from, int count, int[][] rows, ForkJoinPool pool) {
+        int n = out.size();
+        long[] seen = new long[n];
+        long[] frontier = new long[n]; //биты, впервые дошедшие до вершины на текущем уровне
+        long[] next = new long[n];     //то же для следующего уровня, между уровнями весь из нулей
+        IntDynamicArray list = new IntDynamicArray();
+        for (int i = 0; i < count; i++) {
+            int s = sources[from + i];
+            long bit = 1L << i;
+            if (frontier[s] == 0) list.append(s);
+            seen[s] |= bit;
+            frontier[s] |= bit;
+            rows[i][s] = 0;
+        }
+        long full = count == BATCH ? -1L : (1L << count) - 1;
+        int[] current = list.toArray();
+        for (int level = 1; current.length > 0; level++) {
+            long frontierEdges = 0;
+            for (int v : current) frontierEdges += out.degree(v);
+            int[] found = frontierEdges > out.edgeCount() / ALPHA
+                    ? bottomUp(in, seen, frontier, next, full, rows, level, pool)
+                    : topDown(out, seen, frontier, next, current, rows, level);
+            for (int v : current) frontier[v] = 0;
+            long[] t = frontier;
+            frontier = next;
+            next = t;
+            current = found;
+        }
+    }
+
+    private static int[] topDown(Csr out, long[] seen, long[] frontier, long[] next, int[] current,
+                                 int[][] rows, int level) {
+        IntDynamicArray found = new IntDynamicArray();
+        for (int v : current) {
+            long bits = frontier[v];
+            for (int e = out.offsets[v]; e < out.offsets[v + 1]; e++) {
+                int u = out.targets[e];
+                long fresh = bits & ~seen[u];
+                if (fresh == 0) continue;
+                if (next[u] == 0) found.append(u);
+                next[u] |= fresh;
+                seen[u] |= fresh;
+                record(rows, fresh, u, level);
+            }
+        }
+        return found.toArray();
+    }
+
+    //вершина пишет только свои ячейки, поэтому куски id не мешают друг другу
+    private static int[] bottomUp(Csr in, long[] seen, long[] frontier, long[] next, long full,
+                                  int[][] rows, int level, ForkJoinPool pool) {
+        int n = in.size();
+        IntDynamicArray[] parts = new IntDynamicArray[Parallel.chunks(n, GRAIN)];
+        Parallel.forChunks(pool, n, GRAIN, (chunk, from, to) -> {
+            IntDynamicArray part = new IntDynamicArray();
+            for (int u = from; u < to; u++) {
+                long missing = full & ~seen[u];
+                if (missing == 0) continue;
+                long fresh = 0;
+                for (int e = in.offsets[u]; e < in.offsets[u + 1] && fresh != missing; e++) {
+                    fresh |= frontier[in.targets[e]] & missing;
+                }
+                if (fresh == 0) continue;
+                next[u] = fresh;
+                seen[u] |= fresh;
+                record(rows, fresh, u, level);
+                part.append(u);
+            }
+            parts[chunk] = part;
+        });
+        for (int i = 0; i < parts.length; i++) if (parts[i] == null) parts[i] = new IntDynamicArray();
+        return Parallel.concat(parts);
+    }
+
+    private static void record(int[][] rows, long bits, int u, int level) {
+        while (bits != 0) {
+            rows[Long.numberOfTrailingZeros(bits)][u] = level;
+            bits &= bits - 1;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package graph;
+import structures.DynamicArray;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+//словарь имён вершин, который работает прямо с байтами файла
+//одинаковые имена получают один и тот же плотный id, строка и вершина создаются только при первом запросе vertex(id),
+//поэтому сам разбор байтов не вызывает парсер и может идти в нескольких потоках с отдельными словарями
+final class NameTable<V> {
+    private final GraphIO.VertexParser<V> parser;
+    private final DynamicArray<V> vertices = new DynamicArray<>(); //id -> вершина, null пока не запрошена
+    private int[] slots;   //id + 1, 0 - пустая ячейка
+    private int mask;
+    private byte[] pool = new byte[1 << 12]; //байты всех имён подряд
+    private int poolSize;
+    private int[] starts = new int[16];
+    private int[] lengths = new int[16];
+    private int[] hashes = new int[16];
+    private int size;
+
+    NameTable(GraphIO.VertexParser<V> parser, int expectedNames) {
+        this.parser = parser;
+        int capacity = 16;
+        while (capacity * 0.5 < expectedNames) capacity <<= 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    V vertex(int id) {
+        V v = vertices.get(id);
+        if (v == null) {
+            v = parser.parse(new String(pool, starts[id], lengths[id], StandardCharsets.UTF_8));
+            vertices.set(id, v);
+        }
+        return v;
+    }
+
+    static int hash(byte[] buf, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) h = h * 31 + buf[i];
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private boolean sameName(int id, byte[] buf, int from, int to) {
+        if (lengths[id] != to - from) return false;
+        int p = starts[id];
+        for (int i = from; i < to; i++) {
+            if (pool[p++] != buf[i]) return false;
+        }
+        return true;
+    }
+
+    //id имени из buf[from, to), новое имя регистрируется
+    int intern(byte[] buf, int from, int to) {
+        int h = hash(buf, from, to);
+        int index = h & mask;
+        while (slots[index] != 0) {
+            int id = slots[index] - 1;
+            if (hashes[id] == h && sameName(id, buf, from, to)) return id;
+            index = (index + 1) & mask;
+        }
+        int id = add(buf, from, to, h);
+        slots[index] = id + 1;
+        if (size * 2 > slots.length) rehash();
+        return id;
+    }
+
+    //перенести имя id из другого словаря (например, собранного другим потоком)
+    int intern(NameTable<?> other, int id) {
+        return intern(other.pool, other.starts[id], other.starts[id] + other.lengths[id]);
+    }
+
+    private int add(byte[] buf, int from, int to, int h) {
+        int length = to - from;
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+        System.arraycopy(buf, from, pool, poolSize, length);
+        starts[size] = poolSize;
+        lengths[size] = length;
+        hashes[size] = h;
+        poolSize += length;
+        vertices.append(null);
+        return size++;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int index = hashes[id] & mask;
+            while (slots[index] != 0) index = (index + 1) & mask;
+            slots[index] = id + 1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package graph;
+import structures.IntDynamicArray;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+//параллельный цикл по отрезку [0, size), разбитому на куски по grain элементов
+//кусок с номером chunk - это [chunk * grain, min(size, (chunk + 1) * grain)), так что результаты
+//кусков можно складывать в массив по номеру и потом склеивать в исходном порядке
+final class Parallel {
+    private Parallel() {}
+
+    interface ChunkBody {
+        void run(int chunk, int from, int to);
+    }
+
+    static int chunks(int size, int grain) {
+        return (int) (((long) size + grain - 1) / grain);
+    }
+
+    static void forChunks(ForkJoinPool pool, int size, int grain, ChunkBody body) {
+        int chunks = chunks(size, grain);
+        if (chunks <= 1) {
+            //один кусок дешевле выполнить на месте, чем отдавать в пул
+            if (size > 0) body.run(0, 0, size);
+            return;
+        }
+        pool.invoke(new ChunkTask(0, chunks, size, grain, body));
+    }
+
+    //склеить результаты кусков в порядке их номеров
+    static int[] concat(IntDynamicArray[] parts) {
+        int total = 0;
+        for (IntDynamicArray part : parts) total += part.size();
+        int[] result = new int[total];
+        int k = 0;
+        for (IntDynamicArray part : parts) {
+            for (int i = 0; i < part.size(); i++) result[k++] = part.get(i);
+        }
+        return result;
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int lo;
+        private final int hi;
+        private final int size;
+        private final int grain;
+        private final ChunkBody body;
+
+        ChunkTask(int lo, int hi, int size, int grain, ChunkBody body) {
+            this.lo = lo;
+            this.hi = hi;
+            this.size = size;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                int from = lo * grain;
+                body.run(lo, from, (int) Math.min(size, (long) from + grain));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(lo, mid, size, grain, body), new ChunkTask(mid, hi, size, grain, body));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package graph;
+import structures.IntDynamicArray;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+//многопоточный BFS по уровням: фронтир очередного уровня раскрывается кусками в ForkJoinPool
+//пока фронтир мал, идём сверху вниз (от фронтира по исходящим рёбрам, вершину захватывает CAS в битовой карте),
+//когда рёбер фронтира становится много, переключаемся снизу вверх: каждая непосещённая вершина
+//ищет родителя среди входящих соседей и останавливается на первом найденном (Beamer, direction-optimizing BFS)
+final class ParallelBfs {
+    private ParallelBfs() {}
+
+    private static final int ALPHA = 14; //сверху вниз -> снизу вверх, когда рёбер фронтира > непросмотренных / ALPHA
+    private static final int BETA = 24;  //снизу вверх -> сверху вниз, когда вершин фронтира < n / BETA
+    private static final int FRONTIER_GRAIN = 1 << 9;
+    private static final int VERTEX_GRAIN = 1 << 12; //кратно 64, куски не делят слова битовой карты
+
+    //вершины нового уровня и сумма их исходящих степеней
+    private static final class Level {
+        final int[] vertices;
+        final long edges;
+
+        Level(int[] vertices, long edges) {
+            this.vertices = vertices;
+            this.edges = edges;
+        }
+    }
+
+    private static boolean isVisited(AtomicLongArray visited, int v) {
+        return (visited.get(v >>> 6) & (1L << v)) != 0;
+    }
+
+    //true, если бит v поставил именно этот поток
+    private static boolean claim(AtomicLongArray visited, int v) {
+        int word = v >>> 6;
+        long bit = 1L << v;
+        long current = visited.get(word);
+        while ((current & bit) == 0) {
+            if (visited.compareAndSet(word, current, current | bit)) return true;
+            current = visited.get(word);
+        }
+        return false;
+    }
+
+    //расстояние в рёбрах от source до каждого id, -1 если вершина недостижима
+    static int[] distances(Csr out, int source, ForkJoinPool pool) {
+        int n = out.size();
+        int[] dist = new int[n];
+        Arrays.fill(dist, -1);
+        AtomicLongArray visited = new AtomicLongArray((n + 63) >>> 6);
+        Csr in = null; //входящие рёбра нужны только снизу вверх, строятся при первом переключении
+        dist[source] = 0;
+        claim(visited, source);
+
+        Level frontier = new Level(new int[]{source}, out.degree(source));
+        long unexplored = out.edgeCount() - frontier.edges;
+        boolean bottomUp = false;
+        for (int level = 0; frontier.vertices.length > 0; level++) {
+            if (!bottomUp && frontier.edges > unexplored / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontier.vertices.length < n / BETA) {
+                bottomUp = false;
+            }
+            if (bottomUp) {
+                if (in == null) in = out.reverse();
+                frontier = bottomUpStep(out, in, dist, visited, level, pool);
+            } else {
+                frontier = topDownStep(out, dist, visited, frontier.vertices, level, pool);
+            }
+            unexplored -= frontier.edges;
+        }
+        return dist;
+    }
+
+    private static Level topDownStep(Csr out, int[] dist, AtomicLongArray visited, int[] frontier,
+                                     int level, ForkJoinPool pool) {
+        int chunks = Parallel.chunks(frontier.length, FRONTIER_GRAIN);
+        IntDynamicArray[] parts = new IntDynamicArray[chunks];
+        long[] edges = new long[chunks];
+        Parallel.forChunks(pool, frontier.length, FRONTIER_GRAIN, (chunk, from, to) -> {
+            IntDynamicArray found = new IntDynamicArray();
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                int u = frontier[i];
+                for (int k = out.offsets[u]; k < out.offsets[u + 1]; k++) {
+                    int v = out.targets[k];
+                    if (!isVisited(visited, v) && claim(visited, v)) {
+                        dist[v] = level + 1;
+                        found.append(v);
+                        sum += out.degree(v);
+                    }
+                }
+            }
+            parts[chunk] = found;
+            edges[chunk] = sum;
+        });
+        return concat(parts, edges);
+    }
+
+    //каждый кусок id обрабатывает только свои вершины, поэтому CAS здесь не соревнуется
+    private static Level bottomUpStep(Csr out, Csr in, int[] dist, AtomicLongArray visited,
+                                      int level, ForkJoinPool pool) {
+        int n = out.size();
+        int chunks = Parallel.chunks(n, VERTEX_GRAIN);
+        IntDynamicArray[] parts = new IntDynamicArray[chunks];
+        long[] edges = new long[chunks];
+        Parallel.forChunks(pool, n, VERTEX_GRAIN, (chunk, from, to) -> {
+            IntDynamicArray found = new IntDynamicArray();
+            long sum = 0;
+            for (int v = from; v < to; v++) {
+                if (isVisited(visited, v)) continue;
+                for (int k = in.offsets[v]; k < in.offsets[v + 1]; k++) {
+                    //соседи, найденные на этом же шаге, имеют level + 1 и родителями не считаются
+                    if (dist[in.targets[k]] == level) {
+                        claim(visited, v);
+                        dist[v] = level + 1;
+                        found.append(v);
+                        sum += out.degree(v);
+                        break;
+                    }
+                }
+            }
+            parts[chunk] = found;
+            edges[chunk] = sum;
+        });
+        return concat(parts, edges);
+    }
+
+    private static Level concat(IntDynamicArray[] parts, long[] edges) {
+        int total = 0;
+        long sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            total += parts[i].size();
+            sum += edges[i];
+        }
+        int[] vertices = new int[total];
+        int k = 0;
+        for (IntDynamicArray part : parts) {
+            for (int i = 0; i < part.size(); i++) vertices[k++] = part.get(i);
+        }
+        return new Level(vertices, sum);
+    }
+
+    //порядок обхода по готовым расстояниям, совпадает с последовательным Graph.bfsOrder:
+    //родитель вершины - самый ранний в порядке сосед с уровнем на 1 меньше,
+    //дети родителя идут в порядке его рёбер. каждый уровень строится в три параллельных прохода
+    static int[] order(Csr out, int[] dist, int source, ForkJoinPool pool) {
+        int n = out.size();
+        int reached = 0;
+        for (int d : dist) if (d != -1) reached++;
+        int[] order = new int[reached];
+        int[] initial = new int[n];
+        Arrays.fill(initial, Integer.MAX_VALUE);
+        AtomicIntegerArray parent = new AtomicIntegerArray(initial); //позиция родителя в order
+        order[0] = source;
+        int levelFrom = 0;
+        int levelTo = 1;
+        while (levelFrom < levelTo) {
+            int base = levelFrom;
+            int next = dist[order[levelFrom]] + 1;
+            int size = levelTo - levelFrom;
+            //1. каждая вершина следующего уровня запоминает самого раннего родителя
+            Parallel.forChunks(pool, size, FRONTIER_GRAIN, (chunk, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int p = base + i;
+                    int u = order[p];
+                    for (int k = out.offsets[u]; k < out.offsets[u + 1]; k++) {
+                        int v = out.targets[k];
+                        if (dist[v] != next) continue;
+                        int current = parent.get(v);
+                        while (p < current && !parent.compareAndSet(v, current, p)) current = parent.get(v);
+                    }
+                }
+            });
+            //2. сколько детей у каждого родителя
+            int[] starts = new int[size + 1];
+            Parallel.forChunks(pool, size, FRONTIER_GRAIN, (chunk, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int p = base + i;
+                    int u = order[p];
+                    int children = 0;
+                    for (int k = out.offsets[u]; k < out.offsets[u + 1]; k++) {
+                        int v = out.targets[k];
+                        if (dist[v] == next && parent.get(v) == p) children++;
+                    }
+                    starts[i + 1] = children;
+                }
+            });
+            for (int i = 0; i < size; i++) starts[i + 1] += starts[i];
+            //3. родители раскладывают детей по своим местам
+            int target = levelTo;
+            Parallel.forChunks(pool, size, FRONTIER_GRAIN, (chunk, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int p = base + i;
+                    int u = order[p];
+                    int slot = target + starts[i];
+                    for (int k = out.offsets[u]; k < out.offsets[u + 1]; k++) {
+                        int v = out.targets[k];
+                        if (dist[v] == next && parent.get(v) == p) order[slot++] = v;
+                    }
+                }
+            });
+            levelFrom = levelTo;
+            levelTo += starts[size];
+        }
+        return order;
+    }
+}
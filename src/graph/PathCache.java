@@ -0,0 +1,283 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+//ограниченный кеш кратчайших путей между парами (start, goal) поверх Graph
+//при переполнении вытесняется пара, которую дольше всех не спрашивали (LRU, двусвязный список записей).
+//кеш подписан на изменения графа и сбрасывает только записи, которые изменение могло испортить:
+//удаление ребра - пути через это ребро (остальные пути не удлиняются и остаются кратчайшими),
+//удаление вершины - пути через неё и записи с ней на концах, добавление ребра может укоротить
+//любой путь или соединить несвязанные вершины, поэтому сбрасывает всё. добавление вершины ничего не портит.
+//запросы можно делать из многих потоков, поиск пути идёт вне блокировки; граф, как и раньше,
+//меняет один поток и не одновременно с запросами
+public class PathCache<V> implements GraphListener<V> {
+    private static final class Key<V> {
+        final V start;
+        final V goal;
+
+        Key(V start, V goal) {
+            this.start = start;
+            this.goal = goal;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * start.hashCode() + goal.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key<?> other = (Key<?>) o;
+            return start.equals(other.start) && goal.equals(other.goal);
+        }
+    }
+
+    //запись кеша, path == null - пути нет
+    private static final class Node<V> {
+        final Key<V> key;
+        final DynamicArray<V> path;
+        final int weight;
+        Node<V> prev;
+        Node<V> next;
+
+        Node(Key<V> key, DynamicArray<V> path, int weight) {
+            this.key = key;
+            this.path = path;
+            this.weight = weight;
+        }
+    }
+
+    private final Graph<V> graph;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private HashMap<Key<V>, Node<V>> entries;
+    private HashMap<V, HashMap<Key<V>, Node<V>>> byVertex; //вершина -> записи, чьи пути через неё проходят
+    private final Node<V> head = new Node<>(null, null, 0); //head.next - самая свежая запись, head.prev - самая старая
+    private long epoch;                                     //растёт при каждом сбросе, устаревший результат поиска не кладём
+    private long hits;
+    private long misses;
+
+    public PathCache(Graph<V> graph, int capacity) {
+        if (graph == null) throw new GraphError("Граф не может быть пустым");
+        if (capacity <= 0) throw new GraphError("Размер кеша должен быть положительным");
+        this.graph = graph;
+        this.capacity = capacity;
+        reset();
+        graph.addListener(this);
+    }
+
+    private void reset() {
+        entries = new HashMap<>();
+        byVertex = new HashMap<>();
+        head.prev = head;
+        head.next = head;
+        epoch++;
+    }
+
+    public int capacity() {
+        return capacity; }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hits() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long misses() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //то же, что graph.shortestPath(start, goal), возвращается копия пути
+    public DynamicArray<V> shortestPath(V start, V goal) {
+        Node<V> node = find(start, goal);
+        if (node.path == null) throw noPath(start, goal);
+        DynamicArray<V> result = new DynamicArray<>(node.path.size());
+        for (V v : node.path) result.append(v);
+        return result;
+    }
+
+    //вес кратчайшего пути, то же, что graph.pathWeight(graph.shortestPath(start, goal))
+    public int pathWeight(V start, V goal) {
+        Node<V> node = find(start, goal);
+        if (node.path == null) throw noPath(start, goal);
+        return node.weight;
+    }
+
+    private GraphError noPath(V start, V goal) {
+        return new GraphError("Кратчайший путь от '" + start + "' до '" + goal + "' не существует");
+    }
+
+    private Node<V> find(V start, V goal) {
+        Key<V> key = new Key<>(start, goal);
+        long seen;
+        lock.lock();
+        try {
+            Node<V> node = entries.tryGet(key);
+            if (node != null) {
+                hits++;
+                unlink(node);
+                linkFirst(node);
+                return node;
+            }
+            misses++;
+            seen = epoch;
+        } finally {
+            lock.unlock();
+        }
+
+        //отсутствующая вершина - ошибка графа, такие запросы не кешируем
+        if (!graph.containsVertex(start) || !graph.containsVertex(goal)) {
+            graph.shortestPath(start, goal);
+        }
+        Node<V> node;
+        try {
+            DynamicArray<V> path = graph.shortestPath(start, goal);
+            node = new Node<>(key, path, graph.pathWeight(path));
+        } catch (GraphError e) {
+            node = new Node<>(key, null, 0); //обе вершины есть, значит пути нет
+        }
+
+        lock.lock();
+        try {
+            //пока искали, граф мог поменяться, или ту же пару уже положил другой поток
+            if (epoch == seen && !entries.containsKey(key)) {
+                insert(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return node;
+    }
+
+    private void insert(Node<V> node) {
+        entries.put(node.key, node);
+        linkFirst(node);
+        if (node.path == null) {
+            index(node.key.start, node);
+            index(node.key.goal, node);
+        } else {
+            for (V v : node.path) index(v, node);
+        }
+        if (entries.size() > capacity) evict(head.prev);
+    }
+
+    private void index(V v, Node<V> node) {
+        HashMap<Key<V>, Node<V>> set = byVertex.tryGet(v);
+        if (set == null) {
+            set = new HashMap<>();
+            byVertex.put(v, set);
+        }
+        set.put(node.key, node);
+    }
+
+    private void unindex(V v, Node<V> node) {
+        HashMap<Key<V>, Node<V>> set = byVertex.tryGet(v);
+        if (set == null) return;
+        set.remove(node.key);
+        if (set.size() == 0) byVertex.remove(v);
+    }
+
+    private void evict(Node<V> node) {
+        entries.remove(node.key);
+        unlink(node);
+        if (node.path == null) {
+            unindex(node.key.start, node);
+            unindex(node.key.goal, node);
+        } else {
+            for (V v : node.path) unindex(v, node);
+        }
+    }
+
+    private void linkFirst(Node<V> node) {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+    private void unlink(Node<V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //отписаться от графа, дальше кеш не следит за изменениями и пользоваться им нельзя
+    public void close() {
+        graph.removeListener(this);
+        clear();
+    }
+
+    @Override
+    public void edgeAdded(V from, V to, int weight) {
+        clear();
+    }
+
+    @Override
+    public void edgeRemoved(V from, V to, int weight) {
+        lock.lock();
+        try {
+            epoch++;
+            HashMap<Key<V>, Node<V>> set = byVertex.tryGet(from);
+            if (set == null) return;
+            DynamicArray<Node<V>> broken = new DynamicArray<>();
+            for (Node<V> node : set.values()) {
+                if (node.path != null && usesEdge(node.path, from, to)) broken.append(node);
+            }
+            for (Node<V> node : broken) evict(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //идёт ли путь по ребру from -> to (в неориентированном графе - в любую сторону)
+    private boolean usesEdge(DynamicArray<V> path, V from, V to) {
+        for (int i = 0; i < path.size(); i++) {
+            if (!path.get(i).equals(from)) continue;
+            if (i + 1 < path.size() && path.get(i + 1).equals(to)) return true;
+            return !graph.isDirected() && i > 0 && path.get(i - 1).equals(to);
+        }
+        return false;
+    }
+
+    @Override
+    public void vertexRemoved(V v) {
+        lock.lock();
+        try {
+            epoch++;
+            HashMap<Key<V>, Node<V>> set = byVertex.tryGet(v);
+            if (set == null) return;
+            DynamicArray<Node<V>> broken = new DynamicArray<>();
+            for (Node<V> node : set.values()) broken.append(node);
+            for (Node<V> node : broken) evict(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
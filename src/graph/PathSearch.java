@@ -0,0 +1,8 @@
+package graph;
+//способ поиска кратчайшего пути между двумя вершинами
+public enum PathSearch {
+    //обычная Дейкстра от start до goal
+    DIJKSTRA,
+    //Дейкстра одновременно от start по исходящим рёбрам и от goal по входящим до встречи
+    BIDIRECTIONAL
+}
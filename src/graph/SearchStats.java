@@ -0,0 +1,9 @@
+package graph;
+//счётчики поиска пути, заполняются, если передать объект в shortestPath
+public final class SearchStats {
+    long settled;
+
+    //сколько раз вершина снималась с кучи, у двустороннего поиска - с обеих сторон
+    public long settled() {
+        return settled; }
+}
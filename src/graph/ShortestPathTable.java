@@ -0,0 +1,76 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import java.util.concurrent.ForkJoinPool;
+//кратчайшие расстояния и предшественники от одной вершины до всех остальных
+//таблица относится к графу на момент расчёта, после изменения графа её нужно пересчитать
+public class ShortestPathTable<V> {
+    private final IndexedGraph<V> graph;
+    private final int source;
+    private final long[] distance;   //id -> расстояние, DeltaStepping.UNREACHED если недостижима
+    private final int[] predecessor; //id -> предыдущая вершина на кратчайшем пути, -1 у source и недостижимых
+
+    ShortestPathTable(IndexedGraph<V> graph, int source, long[] distance, int[] predecessor) {
+        this.graph = graph;
+        this.source = source;
+        this.distance = distance;
+        this.predecessor = predecessor;
+    }
+
+    //delta-stepping от вершины start, delta <= 0 - подобрать ширину корзины по графу
+    static <V> ShortestPathTable<V> deltaStepping(IndexedGraph<V> g, int start, int delta, int parallelism) {
+        if (parallelism <= 0) throw new GraphError("Число потоков должно быть положительным");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Csr out = Csr.of(g, pool);
+            int width = delta > 0 ? delta : DeltaStepping.defaultDelta(out, g.vertexCount());
+            long[] distance = DeltaStepping.distances(out, start, width, pool);
+            return new ShortestPathTable<>(g, start, distance, DeltaStepping.predecessors(out, distance, start, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int ensureVertexExists(V v) {
+        int id = graph.idOf(v);
+        if (id == -1 || id >= distance.length) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    public V source() {
+        return graph.vertexAt(source);
+    }
+
+    //длина кратчайшего пути от source, -1 если вершина недостижима
+    public long distance(V v) {
+        long d = distance[ensureVertexExists(v)];
+        return d == DeltaStepping.UNREACHED ? -1 : d;
+    }
+
+    public boolean isReachable(V v) {
+        return distance[ensureVertexExists(v)] != DeltaStepping.UNREACHED;
+    }
+
+    //предыдущая вершина на кратчайшем пути, null у source и недостижимых вершин
+    public V predecessor(V v) {
+        int p = predecessor[ensureVertexExists(v)];
+        return p == -1 ? null : graph.vertexAt(p);
+    }
+
+    //кратчайший путь от source до goal по цепочке предшественников
+    public DynamicArray<V> pathTo(V goal) {
+        int g = ensureVertexExists(goal);
+        if (distance[g] == DeltaStepping.UNREACHED) {
+            throw new GraphError("Кратчайший путь от '" + source() + "' до '" + goal + "' не существует");
+        }
+        int length = 1;
+        for (int v = g; v != source; v = predecessor[v]) length++;
+        int[] ids = new int[length];
+        for (int v = g, i = length - 1; i >= 0; v = predecessor[v], i--) ids[i] = v;
+        DynamicArray<V> path = new DynamicArray<>(length);
+        for (int id : ids) path.append(graph.vertexAt(id));
+        return path;
+    }
+}
@@ -0,0 +1,123 @@
+package graph;
+import exceptions.GraphError;
+import structures.BitSet;
+import structures.DynamicArray;
+import structures.IndexedHeap;
+import java.util.Arrays;
+//дерево кратчайших путей от одной вершины, которое достраивается по мере запросов
+//Дейкстра останавливается, как только снята с кучи запрошенная вершина, и следующий запрос
+//более далёкой вершины продолжает её с того же места. уже снятые вершины отвечаются за O(1) (путь - за его длину).
+//если граф изменился (version()), дерево при следующем запросе строится заново
+public class ShortestPathTree<V> {
+    private final IndexedGraph<V> graph;
+    private final V source;
+    private long version;
+    private int sourceId;
+    private long[] dist;      //id -> лучшее найденное расстояние, DeltaStepping.UNREACHED если вершина не достигнута
+    private int[] prev;       //id -> предыдущая вершина на пути, -1 у source и недостигнутых
+    private BitSet settled;   //вершины, расстояние до которых окончательное
+    private IndexedHeap heap; //граница поиска, null когда дерево построено целиком
+    private int settledCount;
+
+    ShortestPathTree(IndexedGraph<V> graph, V source) {
+        this.graph = graph;
+        this.source = source;
+        reset();
+    }
+
+    private void reset() {
+        sourceId = graph.idOf(source);
+        if (sourceId == -1) {
+            throw new GraphError("Вершина '" + source + "' не существует в графе");
+        }
+        int n = graph.idBound();
+        dist = new long[n];
+        Arrays.fill(dist, DeltaStepping.UNREACHED);
+        prev = new int[n];
+        Arrays.fill(prev, -1);
+        settled = new BitSet(n);
+        heap = new IndexedHeap(n);
+        settledCount = 0;
+        version = graph.version();
+        dist[sourceId] = 0;
+        heap.offer(sourceId, 0);
+    }
+
+    private int ensureVertexExists(V v) {
+        if (graph.version() != version) reset();
+        int id = graph.idOf(v);
+        if (id == -1) {
+            throw new GraphError("Вершина '" + v + "' не существует в графе");
+        }
+        return id;
+    }
+
+    //продолжить Дейкстру, пока goal не снята с кучи или куча не опустела
+    private void settle(int goal) {
+        while (heap != null && !settled.get(goal)) {
+            int v = heap.pollMin();
+            settled.set(v);
+            settledCount++;
+            long dv = dist[v];
+            int degree = graph.degree(v);
+            for (int k = 0; k < degree; k++) {
+                int u = graph.targetAt(v, k);
+                long alt = dv + graph.weightAt(v, k);
+                if (alt < dist[u]) {
+                    dist[u] = alt;
+                    prev[u] = v;
+                    heap.offer(u, alt);
+                }
+            }
+            if (heap.isEmpty()) heap = null;
+        }
+    }
+
+    public V source() {
+        return source;
+    }
+
+    //длина кратчайшего пути от source, -1 если вершина недостижима
+    public long distanceTo(V goal) {
+        int g = ensureVertexExists(goal);
+        settle(g);
+        return settled.get(g) ? dist[g] : -1;
+    }
+
+    public boolean isReachable(V goal) {
+        return distanceTo(goal) != -1;
+    }
+
+    //кратчайший путь от source до goal по цепочке предшественников
+    public DynamicArray<V> pathTo(V goal) {
+        int g = ensureVertexExists(goal);
+        settle(g);
+        if (!settled.get(g)) {
+            throw new GraphError("Кратчайший путь от '" + source + "' до '" + goal + "' не существует");
+        }
+        int length = 1;
+        for (int v = g; v != sourceId; v = prev[v]) length++;
+        int[] ids = new int[length];
+        for (int v = g, i = length - 1; i >= 0; v = prev[v], i--) ids[i] = v;
+        DynamicArray<V> path = new DynamicArray<>(length);
+        for (int id : ids) path.append(graph.vertexAt(id));
+        return path;
+    }
+
+    //сколько вершин уже имеют окончательное расстояние
+    public int settledCount() {
+        if (graph.version() != version) reset();
+        return settledCount;
+    }
+
+    //дерево построено до всех достижимых вершин
+    public boolean isComplete() {
+        return graph.version() == version && heap == null;
+    }
+
+    //примерный объём массивов дерева в байтах, куча учитывается, пока дерево не достроено
+    public long memoryBytes() {
+        long n = dist.length;
+        return n * (Long.BYTES + Integer.BYTES) + n / 8 + (heap == null ? 0 : n * (2 * Integer.BYTES + Double.BYTES));
+    }
+}
@@ -0,0 +1,91 @@
+package graph;
+import exceptions.GraphError;
+import structures.DynamicArray;
+import structures.HashMap;
+//деревья кратчайших путей по источникам в пределах бюджета памяти
+//дерево для источника заводится при первом запросе и достраивается следующими запросами от него же.
+//когда сумма memoryBytes() деревьев больше бюджета, удаляются деревья, к которым дольше всех не обращались.
+//деревья сами начинаются заново после изменения графа, поэтому кеш изменения не отслеживает
+public class ShortestPathTreeCache<V> {
+    private static final class Entry<V> {
+        final ShortestPathTree<V> tree;
+        long lastUsed;
+
+        Entry(ShortestPathTree<V> tree) {
+            this.tree = tree;
+        }
+    }
+
+    private final IndexedGraph<V> graph;
+    private final long budgetBytes;
+    private HashMap<V, Entry<V>> bySource = new HashMap<>();
+    private final DynamicArray<Entry<V>> entries = new DynamicArray<>(); //деревьев немного, поиск старейшего - перебором
+    private long clock;
+    private long hits;
+    private long misses;
+
+    ShortestPathTreeCache(IndexedGraph<V> graph, long budgetBytes) {
+        if (budgetBytes <= 0) throw new GraphError("Бюджет памяти должен быть положительным");
+        this.graph = graph;
+        this.budgetBytes = budgetBytes;
+    }
+
+    //дерево от start, последнее запрошенное дерево не вытесняется, даже если одно не влезает в бюджет
+    public ShortestPathTree<V> tree(V start) {
+        Entry<V> entry = bySource.tryGet(start);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+            entry = new Entry<>(new ShortestPathTree<>(graph, start));
+            bySource.put(start, entry);
+            entries.append(entry);
+        }
+        entry.lastUsed = ++clock;
+        shrink(entry);
+        return entry.tree;
+    }
+
+    public DynamicArray<V> pathTo(V start, V goal) {
+        return tree(start).pathTo(goal);
+    }
+
+    //длина кратчайшего пути, -1 если goal недостижима из start
+    public long distance(V start, V goal) {
+        return tree(start).distanceTo(goal);
+    }
+
+    private void shrink(Entry<V> keep) {
+        while (entries.size() > 1 && memoryBytes() > budgetBytes) {
+            int oldest = -1;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry<V> e = entries.get(i);
+                if (e != keep && (oldest == -1 || e.lastUsed < entries.get(oldest).lastUsed)) oldest = i;
+            }
+            Entry<V> evicted = entries.get(oldest);
+            entries.set(oldest, entries.get(entries.size() - 1));
+            entries.removeAt(entries.size() - 1);
+            bySource.remove(evicted.tree.source());
+        }
+    }
+
+    public long memoryBytes() {
+        long total = 0;
+        for (Entry<V> e : entries) total += e.tree.memoryBytes();
+        return total;
+    }
+
+    public int size() {
+        return entries.size(); }
+
+    public long hits() {
+        return hits; }
+
+    public long misses() {
+        return misses; }
+
+    public void clear() {
+        bySource = new HashMap<>();
+        entries.clear();
+    }
+}
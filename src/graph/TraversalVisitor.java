@@ -0,0 +1,14 @@
+package graph;
+//посетитель обходов bfs/dfs: видит каждую найденную вершину и каждое просмотренное ребро
+//и ответом VisitResult может отсечь часть графа или остановить обход
+public interface TraversalVisitor<V> {
+    //вершина найдена впервые; parent - вершина, из которой пришли (null у start), depth - рёбер от start по дереву обхода
+    default VisitResult vertex(V v, V parent, int depth) {
+        return VisitResult.CONTINUE;
+    }
+
+    //просматривается ребро from -> to, depth - глубина from; вызывается и для рёбер в уже найденные вершины
+    default VisitResult edge(V from, V to, int weight, int depth) {
+        return VisitResult.CONTINUE;
+    }
+}
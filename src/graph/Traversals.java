@@ -0,0 +1,413 @@
+package graph;
+import exceptions.GraphError;
+import structures.BitSet;
+import structures.DynamicArray;
+import structures.IndexedHeap;
+import structures.IntDoubleHashMap;
+import structures.IntDynamicArray;
+import structures.IntIntHashMap;
+import structures.IntQueue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+//обходы и Дейкстра над id вершин, всё состояние обхода хранится в примитивных структурах
+final class Traversals {
+    private Traversals() {}
+
+    //DFS используем стек id
+    static <V> DynamicArray<V> dfsOrder(IndexedGraph<V> g, int start, Consumer<V> visit) {
+        BitSet visited = new BitSet(g.idBound());
+        DynamicArray<V> order = new DynamicArray<>();
+        IntDynamicArray stack = new IntDynamicArray();
+        stack.append(start);
+        while (!stack.isEmpty()) {
+            int v = stack.removeLast();
+            if (!visited.add(v)) {
+                continue;  // уже были
+            }
+            V vertex = g.vertexAt(v);
+            order.append(vertex);
+            if (visit != null) {
+                visit.accept(vertex);
+            }
+            //добавляем соседей в стек в обратном порядке
+            for (int k = g.degree(v) - 1; k >= 0; k--) {
+                int u = g.targetAt(v, k);
+                if (!visited.get(u)) {
+                    stack.append(u);
+                }
+            }
+        }
+        return order;
+    }
+
+    //BFS, массив id порядка обхода одновременно служит очередью
+    static <V> DynamicArray<V> bfsOrder(IndexedGraph<V> g, int start, Consumer<V> visit) {
+        BitSet visited = new BitSet(g.idBound());
+        DynamicArray<V> order = new DynamicArray<>();
+        IntDynamicArray queue = new IntDynamicArray();
+        visited.set(start);
+        queue.append(start);
+        for (int head = 0; head < queue.size(); head++) {
+            int v = queue.get(head);
+            V vertex = g.vertexAt(v);
+            order.append(vertex);
+            if (visit != null) {
+                visit.accept(vertex);
+            }
+            int degree = g.degree(v);
+            for (int k = 0; k < degree; k++) {
+                int u = g.targetAt(v, k);
+                if (visited.add(u)) {
+                    queue.append(u);
+                }
+            }
+        }
+        return order;
+    }
+
+    //BFS с посетителем, вершина сообщается в момент нахождения, порядок тот же, что у bfsOrder.
+    //рёбра смотрим прямо в графе, на вершину ничего не выделяется. true, если посетитель вернул STOP
+    static <V> boolean bfs(IndexedGraph<V> g, int start, TraversalVisitor<V> visitor) {
+        BitSet visited = new BitSet(g.idBound());
+        IntDynamicArray queue = new IntDynamicArray(); //только вершины, рёбра которых надо просмотреть
+        visited.set(start);
+        VisitResult r = visitor.vertex(g.vertexAt(start), null, 0);
+        if (r == VisitResult.STOP) return true;
+        if (r == VisitResult.CONTINUE) queue.append(start);
+        int depth = 0;
+        int levelEnd = queue.size();
+        for (int head = 0; head < queue.size(); head++) {
+            if (head == levelEnd) {
+                depth++;
+                levelEnd = queue.size();
+            }
+            int v = queue.get(head);
+            V from = g.vertexAt(v);
+            int degree = g.degree(v);
+            for (int k = 0; k < degree; k++) {
+                int u = g.targetAt(v, k);
+                V to = g.vertexAt(u);
+                r = visitor.edge(from, to, g.weightAt(v, k), depth);
+                if (r == VisitResult.STOP) return true;
+                if (r == VisitResult.SKIP_SUBTREE || !visited.add(u)) continue;
+                r = visitor.vertex(to, from, depth + 1);
+                if (r == VisitResult.STOP) return true;
+                if (r == VisitResult.CONTINUE) queue.append(u);
+            }
+        }
+        return false;
+    }
+
+    //DFS с посетителем на стеке (вершина, номер следующего ребра), вершины в том же порядке, что у dfsOrder.
+    //память - O(глубина), а не O(E), как у стека с соседями. true, если посетитель вернул STOP
+    static <V> boolean dfs(IndexedGraph<V> g, int start, TraversalVisitor<V> visitor) {
+        BitSet visited = new BitSet(g.idBound());
+        IntDynamicArray stack = new IntDynamicArray();
+        IntDynamicArray next = new IntDynamicArray();
+        visited.set(start);
+        VisitResult r = visitor.vertex(g.vertexAt(start), null, 0);
+        if (r == VisitResult.STOP) return true;
+        if (r == VisitResult.SKIP_SUBTREE) return false;
+        stack.append(start);
+        next.append(0);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            int v = stack.get(top);
+            int k = next.get(top);
+            if (k == g.degree(v)) {
+                stack.removeLast();
+                next.removeLast();
+                continue;
+            }
+            next.set(top, k + 1);
+            int u = g.targetAt(v, k);
+            V from = g.vertexAt(v);
+            V to = g.vertexAt(u);
+            r = visitor.edge(from, to, g.weightAt(v, k), top);
+            if (r == VisitResult.STOP) return true;
+            if (r == VisitResult.SKIP_SUBTREE || !visited.add(u)) continue;
+            r = visitor.vertex(to, from, top + 1);
+            if (r == VisitResult.STOP) return true;
+            if (r == VisitResult.CONTINUE) {
+                stack.append(u);
+                next.append(0);
+            }
+        }
+        return false;
+    }
+
+    //ленивый BFS: следующая вершина считается только при next(), в памяти очередь границы и множество посещённых.
+    //порядок тот же, что у bfsOrder. если граф изменился (version()), итератор бросает ConcurrentModificationException
+    static <V> Iterator<V> bfsIterator(IndexedGraph<V> g, int start) {
+        return new Iterator<V>() {
+            private final long version = g.version();
+            private final BitSet visited = new BitSet(g.idBound());
+            private final IntQueue queue = new IntQueue();
+
+            {
+                visited.set(start);
+                queue.enqueue(start);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public V next() {
+                if (g.version() != version) {
+                    throw new ConcurrentModificationException("Граф изменился во время обхода");
+                }
+                if (queue.isEmpty()) {
+                    throw new NoSuchElementException("Обход закончен");
+                }
+                int v = queue.dequeue();
+                int degree = g.degree(v);
+                for (int k = 0; k < degree; k++) {
+                    int u = g.targetAt(v, k);
+                    if (visited.add(u)) queue.enqueue(u);
+                }
+                return g.vertexAt(v);
+            }
+        };
+    }
+
+    //ленивый DFS на стеке (вершина, номер следующего ребра), порядок тот же, что у dfsOrder, память - O(глубина)
+    static <V> Iterator<V> dfsIterator(IndexedGraph<V> g, int start) {
+        return new Iterator<V>() {
+            private final long version = g.version();
+            private final BitSet visited = new BitSet(g.idBound());
+            private final IntDynamicArray stack = new IntDynamicArray();
+            private final IntDynamicArray next = new IntDynamicArray();
+            private int pending = start; //следующая вершина или -1, если её ещё надо найти
+
+            @Override
+            public boolean hasNext() {
+                if (pending != -1) return true;
+                if (g.version() != version) {
+                    throw new ConcurrentModificationException("Граф изменился во время обхода");
+                }
+                //спускаемся по первому ребру в непосещённую вершину, исчерпанные вершины снимаем со стека
+                while (!stack.isEmpty()) {
+                    int top = stack.size() - 1;
+                    int v = stack.get(top);
+                    int k = next.get(top);
+                    if (k == g.degree(v)) {
+                        stack.removeLast();
+                        next.removeLast();
+                        continue;
+                    }
+                    next.set(top, k + 1);
+                    int u = g.targetAt(v, k);
+                    if (!visited.get(u)) {
+                        pending = u;
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Обход закончен");
+                }
+                int v = pending;
+                pending = -1;
+                visited.set(v);
+                stack.append(v);
+                next.append(0);
+                return g.vertexAt(v);
+            }
+        };
+    }
+
+    static <V> Stream<V> stream(Iterator<V> iterator) {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false);
+    }
+
+    //есть ли путь из start в goal не длиннее maxHops рёбер, BFS обрывается на глубине maxHops
+    static <V> boolean withinHops(IndexedGraph<V> g, int start, int goal, int maxHops) {
+        if (start == goal) return true;
+        V target = g.vertexAt(goal);
+        return bfs(g, start, new TraversalVisitor<V>() {
+            @Override
+            public VisitResult vertex(V v, V parent, int depth) {
+                if (depth > 0 && v.equals(target)) return VisitResult.STOP;
+                return depth < maxHops ? VisitResult.CONTINUE : VisitResult.SKIP_SUBTREE;
+            }
+        });
+    }
+
+    //Дейкстра на индексированной куче, dist/prev заводятся только для затронутых вершин
+    static <V> DynamicArray<V> shortestPath(IndexedGraph<V> g, int start, int goal, SearchStats stats) {
+        IntDoubleHashMap dist = new IntDoubleHashMap();
+        IntIntHashMap prev = new IntIntHashMap();
+        IndexedHeap heap = new IndexedHeap();
+        dist.put(start, 0.0);
+        heap.offer(start, 0.0);
+        boolean reached = false;
+        while (!heap.isEmpty()) {
+            int v = heap.pollMin();
+            if (stats != null) stats.settled++;
+            if (v == goal) {
+                reached = true;
+                break;
+            }
+            double dv = dist.get(v);
+            int degree = g.degree(v);
+            for (int k = 0; k < degree; k++) {
+                int u = g.targetAt(v, k);
+                double alt = dv + g.weightAt(v, k); //альтернативный путь через v
+                if (alt < dist.getOrDefault(u, Double.POSITIVE_INFINITY)) {
+                    dist.put(u, alt);
+                    prev.put(u, v);
+                    heap.offer(u, alt);
+                }
+            }
+        }
+        if (!reached) {
+            throw noPath(g, start, goal);
+        }
+        return buildPath(g, prev, start, goal);
+    }
+
+    private static <V> GraphError noPath(IndexedGraph<V> g, int start, int goal) {
+        return new GraphError("Кратчайший путь от '" + g.vertexAt(start)
+                + "' до '" + g.vertexAt(goal) + "' не существует");
+    }
+
+    //A*: ключ в куче - пройденное расстояние плюс оценка heuristic(v, goal) оставшегося.
+    //оценка должна быть допустимой (не больше настоящего расстояния), тогда путь кратчайший.
+    //если оценка не монотонна, вершина может сняться с кучи повторно после улучшения
+    static <V> DynamicArray<V> astarPath(IndexedGraph<V> g, int start, int goal,
+                                         ToDoubleBiFunction<V, V> heuristic, SearchStats stats) {
+        V target = g.vertexAt(goal);
+        return astarById(g, start, goal, (v, t) -> heuristic.applyAsDouble(g.vertexAt(v), target), stats);
+    }
+
+    //оценка оставшегося расстояния по id вершин, без обращения к объектам вершин
+    interface IdHeuristic {
+        double estimate(int v, int goal);
+    }
+
+    static <V> DynamicArray<V> astarById(IndexedGraph<V> g, int start, int goal,
+                                         IdHeuristic heuristic, SearchStats stats) {
+        IntDoubleHashMap dist = new IntDoubleHashMap();
+        IntIntHashMap prev = new IntIntHashMap();
+        IndexedHeap heap = new IndexedHeap();
+        dist.put(start, 0.0);
+        heap.offer(start, heuristic.estimate(start, goal));
+        while (!heap.isEmpty()) {
+            int v = heap.pollMin();
+            if (stats != null) stats.settled++;
+            if (v == goal) {
+                return buildPath(g, prev, start, goal);
+            }
+            double dv = dist.get(v);
+            int degree = g.degree(v);
+            for (int k = 0; k < degree; k++) {
+                int u = g.targetAt(v, k);
+                double alt = dv + g.weightAt(v, k);
+                if (alt < dist.getOrDefault(u, Double.POSITIVE_INFINITY)) {
+                    dist.put(u, alt);
+                    prev.put(u, v);
+                    heap.offer(u, alt + heuristic.estimate(u, goal));
+                }
+            }
+        }
+        throw noPath(g, start, goal);
+    }
+
+    //двусторонняя Дейкстра: прямой поиск по g от start, обратный по reverse (входящие рёбра g) от goal.
+    //каждый шаг снимаем вершину с той кучи, у которой минимум меньше, и при просмотре ребра,
+    //второй конец которого уже достигнут другой стороной, обновляем лучший найденный путь best.
+    //останавливаемся, когда сумма минимумов куч не меньше best - короче путь уже не найти
+    static <V> DynamicArray<V> bidirectionalPath(IndexedGraph<V> g, IndexedGraph<V> reverse, int start, int goal,
+                                                 SearchStats stats) {
+        if (start == goal) {
+            return buildPath(g, new IntIntHashMap(), start, goal);
+        }
+        IntDoubleHashMap forwardDist = new IntDoubleHashMap();
+        IntDoubleHashMap backwardDist = new IntDoubleHashMap();
+        IntIntHashMap forwardPrev = new IntIntHashMap();
+        IntIntHashMap backwardNext = new IntIntHashMap(); //следующая вершина на пути к goal
+        IndexedHeap forward = new IndexedHeap();
+        IndexedHeap backward = new IndexedHeap();
+        forwardDist.put(start, 0.0);
+        backwardDist.put(goal, 0.0);
+        forward.offer(start, 0.0);
+        backward.offer(goal, 0.0);
+        double best = Double.POSITIVE_INFINITY;
+        int meetFrom = -1; //лучший путь: start ... meetFrom -> meetTo ... goal
+        int meetTo = -1;
+        while (!forward.isEmpty() && !backward.isEmpty()
+                && forward.priorityOf(forward.peekMin()) + backward.priorityOf(backward.peekMin()) < best) {
+            boolean forwardStep = forward.priorityOf(forward.peekMin()) <= backward.priorityOf(backward.peekMin());
+            IndexedGraph<V> side = forwardStep ? g : reverse;
+            IndexedHeap heap = forwardStep ? forward : backward;
+            IntDoubleHashMap dist = forwardStep ? forwardDist : backwardDist;
+            IntDoubleHashMap other = forwardStep ? backwardDist : forwardDist;
+            IntIntHashMap link = forwardStep ? forwardPrev : backwardNext;
+            int v = heap.pollMin();
+            if (stats != null) stats.settled++;
+            double dv = dist.get(v);
+            int degree = side.degree(v);
+            for (int k = 0; k < degree; k++) {
+                int u = side.targetAt(v, k);
+                int w = side.weightAt(v, k);
+                double alt = dv + w;
+                if (alt < dist.getOrDefault(u, Double.POSITIVE_INFINITY)) {
+                    dist.put(u, alt);
+                    link.put(u, v);
+                    heap.offer(u, alt);
+                }
+                double through = alt + other.getOrDefault(u, Double.POSITIVE_INFINITY);
+                if (through < best) {
+                    best = through;
+                    meetFrom = forwardStep ? v : u;
+                    meetTo = forwardStep ? u : v;
+                }
+            }
+        }
+        if (meetFrom == -1) {
+            throw noPath(g, start, goal);
+        }
+        DynamicArray<V> path = buildPath(g, forwardPrev, start, meetFrom);
+        for (int v = meetTo; ; v = backwardNext.get(v)) {
+            path.append(g.vertexAt(v));
+            if (v == goal) break;
+        }
+        return path;
+    }
+
+    //восстанавливаем путь от goal к start по prev и разворачиваем
+    static <V> DynamicArray<V> buildPath(IndexedGraph<V> g, IntIntHashMap prev, int start, int goal) {
+        DynamicArray<V> path = new DynamicArray<>();
+        int cur = goal;
+        path.append(g.vertexAt(cur));
+        while (cur != start) {
+            cur = prev.get(cur);
+            path.append(g.vertexAt(cur));
+        }
+        reverse(path);
+        return path;
+    }
+
+    static <T> void reverse(DynamicArray<T> a) {
+        for (int i = 0, j = a.size() - 1; i < j; i++, j--) {
+            T tmp = a.get(i);
+            a.set(i, a.get(j));
+            a.set(j, tmp);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package graph;
+//соответствие вершина <-> плотный id для CompactGraph
+//словарь может лежать в памяти или читаться прямо из отображённого файла
+interface VertexDictionary<V> {
+    int size();
+
+    //id вершины или -1, если её нет
+    int idOf(V v);
+
+    V vertexAt(int id);
+}
@@ -0,0 +1,10 @@
+package graph;
+//что делать обходу после вызова TraversalVisitor
+public enum VisitResult {
+    //продолжать как обычно
+    CONTINUE,
+    //не идти дальше: для вершины - не просматривать её рёбра, для ребра - не переходить по нему
+    SKIP_SUBTREE,
+    //закончить обход
+    STOP
+}
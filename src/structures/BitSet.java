@@ -0,0 +1,55 @@
+package structures;
+import exceptions.CollectionError;
+//множество неотрицательных int на битах, удобно для посещённых вершин
+public class BitSet {
+    private long[] words;
+
+    public BitSet(int bits) {
+        if (bits < 0) throw new CollectionError("Ошибка: отрицательная емкость");
+        this.words = new long[Math.max(1, (bits + 63) >>> 6)];
+    }
+
+    public BitSet() { this(64); }
+
+    private void ensureWord(int word) {
+        if (word < words.length) return;
+        long[] newWords = new long[Math.max(word + 1, words.length * 2)];
+        System.arraycopy(words, 0, newWords, 0, words.length);
+        words = newWords;
+    }
+
+    public boolean get(int i) {
+        if (i < 0) throw new CollectionError("Индекс " + i + " отрицательный");
+        int w = i >>> 6;
+        return w < words.length && (words[w] & (1L << i)) != 0;
+    }
+
+    public void set(int i) {
+        if (i < 0) throw new CollectionError("Индекс " + i + " отрицательный");
+        ensureWord(i >>> 6);
+        words[i >>> 6] |= 1L << i;
+    }
+
+    //установить бит и сказать, был ли он сброшен до этого
+    public boolean add(int i) {
+        if (get(i)) return false;
+        set(i);
+        return true;
+    }
+
+    public void clear(int i) {
+        if (i < 0) throw new CollectionError("Индекс " + i + " отрицательный");
+        int w = i >>> 6;
+        if (w < words.length) words[w] &= ~(1L << i);
+    }
+
+    public void clear() {
+        for (int i = 0; i < words.length; i++) words[i] = 0L;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long w : words) count += Long.bitCount(w);
+        return count;
+    }
+}
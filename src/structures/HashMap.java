@@ -3,38 +3,49 @@ import exceptions.CollectionError;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 //cвоя хеш-таблица с открытой адресацией
+//ёмкость - степень двойки, ячейку выбираем маской по перемешанному хешу
+//удаление сдвигает хвост цепочки назад, поэтому удалённых ячеек не бывает и поиск не деградирует
 public class HashMap<K, V> {
     private static final int INITIAL_CAPACITY = 8;    //начальная ёмкость
     private static final double MAX_LOAD_FACTOR = 0.7;
+    private static final double MIN_LOAD_FACTOR = 0.15; //ниже этого таблица сжимается
     //внутренняя ячейка таблицы
     private static class Entry<K, V> {
         K key;
         V value;
-        boolean isActive;  // true  запись, false логически удалена
 
         Entry(K key, V value) {
             this.key = key;
             this.value = value;
-            this.isActive = true;
         }
     }
     private int capacity;      //текущая ёмкость массива
-    private int size;          //количество активных элементов
+    private int mask;          //capacity - 1
+    private int size;          //количество элементов
     private Entry<K, V>[] data;//массив ячеек
 
-    @SuppressWarnings("unchecked")
     public HashMap() {
-        this.capacity = INITIAL_CAPACITY;
+        this(0);
+    }
+
+    //сразу выделить место под expectedSize элементов
+    @SuppressWarnings("unchecked")
+    public HashMap(int expectedSize) {
+        if (expectedSize < 0) throw new CollectionError("Ошибка: отрицательная емкость");
+        int cap = INITIAL_CAPACITY;
+        while (cap * MAX_LOAD_FACTOR < expectedSize) cap <<= 1;
+        this.capacity = cap;
+        this.mask = cap - 1;
         this.size = 0;
         this.data = (Entry<K, V>[]) new Entry[capacity];
     }
     public int size() {
         return size;
     }
-    //первичный индекс
+    //первичный индекс, биты хеша перемешиваем, чтобы плохие hashCode не давали длинных цепочек
     private int probeIndex(K key) {
-        int h = (key.hashCode() & 0x7fffffff);
-        return h % capacity;
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
     }
     //не пора ли увеличивать таблицу
     private boolean shouldResize() {
@@ -45,11 +56,15 @@ public class HashMap<K, V> {
     private void resize(int newCapacity) {
         Entry<K, V>[] old = data;
         capacity = newCapacity;
+        mask = newCapacity - 1;
         data = (Entry<K, V>[]) new Entry[capacity];
-        size = 0;
         for (Entry<K, V> entry : old) {
-            if (entry != null && entry.isActive) {
-                put(entry.key, entry.value);
+            if (entry != null) {
+                int index = probeIndex(entry.key);
+                while (data[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                data[index] = entry;
             }
         }
     }
@@ -63,25 +78,20 @@ public class HashMap<K, V> {
         }
 
         int index = probeIndex(key);
-        int firstDeletedIndex = -1;  //первая удалённая ячейка, куда можно засунуть новый элемент
-
         while (true) {
             Entry<K, V> entry = data[index];
             if (entry == null) {
-                //дошли до пустой ячейк либо используем её, либо первую удалённую
-                int targetIndex = (firstDeletedIndex != -1) ? firstDeletedIndex : index;
-                data[targetIndex] = new Entry<>(key, value);
+                //дошли до пустой ячейки, ключа в таблице нет
+                data[index] = new Entry<>(key, value);
                 size++;
                 return;
             }
-            if (!entry.isActive && firstDeletedIndex == -1) {
-                firstDeletedIndex = index;
-            } else if (entry.isActive && entry.key.equals(key)) {
+            if (entry.key.equals(key)) {
                 //просто обновляем значение
                 entry.value = value;
                 return;
             }
-            index = (index + 1) % capacity;
+            index = (index + 1) & mask;
         }
     }
     //получить значение по ключу
@@ -108,31 +118,46 @@ public class HashMap<K, V> {
             return -1;
         }
         int index = probeIndex(key);
-        int steps = 0;
-        while (steps < capacity) {
+        while (true) {
             Entry<K, V> entry = data[index];
             if (entry == null) {
                 //дошли до пустой ячейки
                 return -1;
             }
-            if (entry.isActive && entry.key.equals(key)) {
+            if (entry.key.equals(key)) {
                 return index;
             }
-            index = (index + 1) % capacity;
-            steps++;
+            index = (index + 1) & mask;
         }
-        return -1;
     }
 
-    //логическое удаление по ключу
+    //удаление со сдвигом назад: элементы после дырки, которые можно поставить ближе к их ячейке, переезжают в неё
     public boolean remove(K key) {
-        int idx = findIndex(key);
-        if (idx == -1) {
+        int hole = findIndex(key);
+        if (hole == -1) {
             return false;
         }
-        Entry<K, V> entry = data[idx];
-        entry.isActive = false;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            Entry<K, V> entry = data[j];
+            if (entry == null) {
+                break;
+            }
+            int home = probeIndex(entry.key);
+            //элемент остаётся на месте, если его родная ячейка лежит циклически в (hole, j]
+            boolean stays = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!stays) {
+                data[hole] = entry;
+                hole = j;
+            }
+        }
+        data[hole] = null;
         size--;
+        //после массовых удалений сжимаем таблицу
+        if (capacity > INITIAL_CAPACITY && size < capacity * MIN_LOAD_FACTOR) {
+            resize(capacity / 2);
+        }
         return true;
     }
 
@@ -149,7 +174,7 @@ public class HashMap<K, V> {
             public boolean hasNext() {
                 while (index < capacity) {
                     Entry<K, V> entry = data[index];
-                    if (entry != null && entry.isActive) {
+                    if (entry != null) {
                         return true;
                     }
                     index++;
@@ -176,7 +201,7 @@ public class HashMap<K, V> {
             public boolean hasNext() {
                 while (index < capacity) {
                     Entry<K, V> entry = data[index];
-                    if (entry != null && entry.isActive) {
+                    if (entry != null) {
                         return true;
                     }
                     index++;
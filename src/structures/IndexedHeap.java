@@ -0,0 +1,134 @@
+package structures;
+import exceptions.CollectionError;
+import java.util.Arrays;
+//индексированная 4-арная куча с минимумом в корне
+//ключи - целые числа от 0, у каждого ключа свой приоритет, который можно уменьшать (decrease-key)
+public class IndexedHeap {
+    private static final int D = 4; //число детей у узла, неглубокое дерево лучше ложится в кэш
+    private int[] heap;        //ключи в порядке кучи
+    private int[] pos;         //позиция ключа в heap, -1 если ключа в куче нет
+    private double[] priority; //приоритет по ключу
+    private int size;
+
+    public IndexedHeap(int capacity) {
+        if (capacity <= 0) throw new CollectionError("Ошибка: отрицательная емкость");
+        this.heap = new int[capacity];
+        this.pos = new int[capacity];
+        this.priority = new double[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    public IndexedHeap() { this(16); }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean contains(int key) {
+        return key >= 0 && key < pos.length && pos[key] != -1;
+    }
+
+    public double priorityOf(int key) {
+        if (!contains(key)) throw new CollectionError("Ключ " + key + " отсутствует в куче");
+        return priority[key];
+    }
+
+    //ключи растут за пределы ёмкости - расширяем все массивы
+    private void ensureKey(int key) {
+        if (key < pos.length) return;
+        int newCapacity = Math.max(key + 1, pos.length * 2);
+        int old = pos.length;
+        heap = Arrays.copyOf(heap, newCapacity);
+        pos = Arrays.copyOf(pos, newCapacity);
+        priority = Arrays.copyOf(priority, newCapacity);
+        Arrays.fill(pos, old, newCapacity, -1);
+    }
+
+    //вставить ключ или уменьшить его приоритет, false если новый приоритет не меньше текущего
+    public boolean offer(int key, double p) {
+        if (key < 0) throw new CollectionError("Ключ не может быть отрицательным");
+        ensureKey(key);
+        int i = pos[key];
+        if (i == -1) {
+            heap[size] = key;
+            pos[key] = size;
+            priority[key] = p;
+            siftUp(size++);
+            return true;
+        }
+        if (p < priority[key]) {
+            priority[key] = p;
+            siftUp(i);
+            return true;
+        }
+        return false;
+    }
+
+    public void decreaseKey(int key, double p) {
+        if (!contains(key)) throw new CollectionError("Ключ " + key + " отсутствует в куче");
+        if (p > priority[key]) throw new CollectionError("Новый приоритет больше текущего");
+        priority[key] = p;
+        siftUp(pos[key]);
+    }
+
+    public int peekMin() {
+        if (isEmpty()) throw new CollectionError("Куча пуста");
+        return heap[0];
+    }
+
+    //достать ключ с минимальным приоритетом
+    public int pollMin() {
+        if (isEmpty()) throw new CollectionError("Куча пуста");
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    //поднимаем элемент, пока он меньше родителя
+    private void siftUp(int i) {
+        int key = heap[i];
+        double p = priority[key];
+        while (i > 0) {
+            int parent = (i - 1) / D;
+            int pk = heap[parent];
+            if (priority[pk] <= p) break;
+            heap[i] = pk;
+            pos[pk] = i;
+            i = parent;
+        }
+        heap[i] = key;
+        pos[key] = i;
+    }
+
+    //опускаем элемент к наименьшему из детей
+    private void siftDown(int i) {
+        int key = heap[i];
+        double p = priority[key];
+        while (true) {
+            int first = i * D + 1;
+            if (first >= size) break;
+            int last = Math.min(first + D, size);
+            int best = first;
+            for (int c = first + 1; c < last; c++) {
+                if (priority[heap[c]] < priority[heap[best]]) best = c;
+            }
+            int bk = heap[best];
+            if (priority[bk] >= p) break;
+            heap[i] = bk;
+            pos[bk] = i;
+            i = best;
+        }
+        heap[i] = key;
+        pos[key] = i;
+    }
+}
@@ -0,0 +1,62 @@
+package structures;
+import exceptions.CollectionError;
+//динамический массив int без упаковки в Integer
+public class IntDynamicArray {
+    private int size;
+    private int[] data;
+
+    public IntDynamicArray(int initialCapacity) {
+        if (initialCapacity <= 0) throw new CollectionError("Ошибка: отрицательная емкость");
+        this.data = new int[initialCapacity];
+    }
+
+    public IntDynamicArray() { this(4); }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new CollectionError("Индекс " + index + " вне диапазона [0, " + size + ")");
+    }
+
+    private void resize(int newCapacity) {
+        int[] newData = new int[newCapacity];
+        System.arraycopy(data, 0, newData, 0, size);
+        data = newData;
+    }
+
+    public void append(int value) {
+        if (size == data.length) resize(data.length * 2);
+        data[size++] = value;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return data[index];
+    }
+
+    public void set(int index, int value) {
+        checkIndex(index);
+        data[index] = value;
+    }
+
+    //снять последний элемент, так массив работает как стек
+    public int removeLast() {
+        if (size == 0) throw new CollectionError("Массив пуст");
+        return data[--size];
+    }
+
+    public int last() {
+        if (size == 0) throw new CollectionError("Массив пуст");
+        return data[size - 1];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        System.arraycopy(data, 0, result, 0, size);
+        return result;
+    }
+}
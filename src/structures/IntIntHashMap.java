@@ -0,0 +1,116 @@
+package structures;
+import exceptions.CollectionError;
+//хеш-таблица int -> int с открытой адресацией без упаковки в Integer
+//ёмкость - степень двойки, ячейку выбираем маской, удаление сдвигает хвост цепочки назад (без удалённых ячеек)
+public class IntIntHashMap {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    private int[] keys;
+    private int[] values;
+    private boolean[] used; //занята ли ячейка
+    private int mask;       //capacity - 1
+    private int size;
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public IntIntHashMap() { this(0); }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    //перемешиваем биты ключа, чтобы подряд идущие id не слипались в один длинный кластер
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int findIndex(int key) {
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key) return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    //вставка/обновление значения по ключу
+    public void put(int key, int value) {
+        if (size + 1 > (int) ((mask + 1) * MAX_LOAD_FACTOR)) resize((mask + 1) * 2);
+        int index = slot(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    public int get(int key) {
+        int idx = findIndex(key);
+        if (idx == -1) throw new CollectionError("Ключ '" + key + "' не найден");
+        return values[idx];
+    }
+
+    //значение или defaultValue, если ключа нет
+    public int getOrDefault(int key, int defaultValue) {
+        int idx = findIndex(key);
+        return idx == -1 ? defaultValue : values[idx];
+    }
+
+    public boolean containsKey(int key) {
+        return findIndex(key) != -1;
+    }
+
+    //удаление со сдвигом: элементы после дырки, которым можно встать ближе к своей ячейке, переезжают в неё
+    public boolean remove(int key) {
+        int hole = findIndex(key);
+        if (hole == -1) return false;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) break;
+            int home = slot(keys[j]);
+            //элемент остаётся, если его родная ячейка лежит циклически в (hole, j]
+            boolean stays = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!stays) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < used.length; i++) used[i] = false;
+        size = 0;
+    }
+}
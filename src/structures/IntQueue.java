@@ -0,0 +1,41 @@
+package structures;
+import exceptions.CollectionError;
+//очередь int на кольцевом буфере без упаковки в Integer, как Queue
+//ёмкость - степень двойки, поэтому индекс берётся маской
+public class IntQueue {
+    private static final int MIN_CAPACITY = 4;
+    private int[] data = new int[MIN_CAPACITY];
+    private int head;
+    private int tail;
+    private int size;
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+
+    private void resize(int newCapacity) {
+        int[] newData = new int[newCapacity];
+        for (int i = 0; i < size; i++) {
+            newData[i] = data[(head + i) & (data.length - 1)];
+        }
+        data = newData;
+        head = 0;
+        tail = size & (newCapacity - 1);
+    }
+
+    public void enqueue(int value) {
+        if (size == data.length) resize(data.length * 2);
+        data[tail] = value;
+        tail = (tail + 1) & (data.length - 1);
+        size++;
+    }
+
+    public int dequeue() {
+        if (isEmpty()) throw new CollectionError("Очередь пуста");
+        int value = data[head];
+        head = (head + 1) & (data.length - 1);
+        size--;
+        //очередь почти пустая - уменьшаем массив вдвое
+        if (data.length > MIN_CAPACITY && size <= data.length / 4) resize(data.length / 2);
+        return value;
+    }
+}
@@ -1,21 +1,55 @@
 package structures;
 import exceptions.CollectionError;
+//очередь на кольцевом буфере: head указывает на первый элемент, tail на место для следующего
+//enqueue и dequeue O(1) амортизированно, без сдвига элементов
 public class Queue<T> {
-    private final DynamicArray<T> data = new DynamicArray<>();
+    private static final int MIN_CAPACITY = 4;
+    private T[] data;
+    private int head;
+    private int tail;
+    private int size;
 
-    public boolean isEmpty() { return data.size() == 0; }
+    @SuppressWarnings("unchecked")
+    public Queue() {
+        this.data = (T[]) new Object[MIN_CAPACITY];
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+
+    //переносим элементы в новый массив начиная с нуля
+    @SuppressWarnings("unchecked")
+    private void resize(int newCapacity) {
+        T[] newData = (T[]) new Object[newCapacity];
+        for (int i = 0; i < size; i++) {
+            newData[i] = data[(head + i) % data.length];
+        }
+        data = newData;
+        head = 0;
+        tail = size % newCapacity;
+    }
 
     //добавить в конец
     public void enqueue(T value) {
-        data.append(value);
+        if (size == data.length) resize(data.length * 2);
+        data[tail] = value;
+        tail = (tail + 1) % data.length;
+        size++;
     }
+
     public T dequeue() {
         if (isEmpty()) throw new CollectionError("Очередь пуста");
-        return data.removeAt(0);
+        T value = data[head];
+        data[head] = null; //зануляем, чтобы сборщик мог забрать объект
+        head = (head + 1) % data.length;
+        size--;
+        //очередь почти пустая - уменьшаем массив вдвое
+        if (data.length > MIN_CAPACITY && size <= data.length / 4) resize(data.length / 2);
+        return value;
     }
 
     public T peek() {
         if (isEmpty()) return null;
-        return data.get(0);
+        return data[head];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package structures;
+import exceptions.CollectionError;
+//изменяемый массив с дешёвыми неизменяемыми снимками
+//хранится как 32-ичное дерево: snapshot() за O(1) отдаёт текущий корень, а следующая запись
+//копирует только путь от корня до изменяемого листа (O(log32 n)), остальные узлы общие со снимком.
+//узлы, созданные после последнего снимка, меняются на месте, поэтому серия записей между снимками не копирует лишнего.
+//писать может один поток, читать снимки - сколько угодно потоков одновременно с записью
+public class VersionedArray<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    //узел дерева, edit - метка поколения, в котором узел можно менять на месте
+    private static final class Node {
+        final Object[] slots;
+        final Object edit;
+
+        Node(Object edit) {
+            this.slots = new Object[WIDTH];
+            this.edit = edit;
+        }
+
+        Node(Node other, Object edit) {
+            this.slots = other.slots.clone();
+            this.edit = edit;
+        }
+    }
+
+    private Object edit = new Object(); //текущее поколение
+    private Node root = new Node(edit);
+    private int shift;                  //BITS * (высота дерева - 1)
+    private int size;
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    private void checkIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new CollectionError("Индекс " + index + " вне диапазона [0, " + size + ")");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T lookup(Node root, int shift, int index) {
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.slots[(index >>> level) & MASK];
+        }
+        return (T) node.slots[index & MASK];
+    }
+
+    public T get(int index) {
+        checkIndex(index, size);
+        return lookup(root, shift, index);
+    }
+
+    private Node editable(Node node) {
+        return node.edit == edit ? node : new Node(node, edit);
+    }
+
+    //записать значение, index == size() добавляет элемент в конец
+    public void set(int index, T value) {
+        if (index < 0 || index > size)
+            throw new CollectionError("Индекс " + index + " вне диапазона [0, " + size + "]");
+        if (index == size) {
+            //дерево заполнено - добавляем уровень сверху
+            if (size == 1 << (shift + BITS)) {
+                Node newRoot = new Node(edit);
+                newRoot.slots[0] = root;
+                root = newRoot;
+                shift += BITS;
+            }
+            size++;
+        }
+        root = editable(root);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int i = (index >>> level) & MASK;
+            Node child = (Node) node.slots[i];
+            child = child == null ? new Node(edit) : editable(child);
+            node.slots[i] = child;
+            node = child;
+        }
+        node.slots[index & MASK] = value;
+    }
+
+    public void append(T value) {
+        set(size, value);
+    }
+
+    //неизменяемый снимок текущего содержимого
+    public View<T> snapshot() {
+        View<T> view = new View<>(root, shift, size);
+        edit = new Object(); //всё, что видит снимок, больше не меняется на месте
+        return view;
+    }
+
+    public static final class View<T> {
+        private final Node root;
+        private final int shift;
+        private final int size;
+
+        private View(Node root, int shift, int size) {
+            this.root = root;
+            this.shift = shift;
+            this.size = size;
+        }
+
+        public int size() { return size; }
+
+        public T get(int index) {
+            if (index < 0 || index >= size)
+                throw new CollectionError("Индекс " + index + " вне диапазона [0, " + size + ")");
+            return lookup(root, shift, index);
+        }
+    }
+}
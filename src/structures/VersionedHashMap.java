@@ -0,0 +1,156 @@
+package structures;
+import exceptions.CollectionError;
+//хеш-таблица с дешёвыми неизменяемыми снимками
+//та же открытая адресация, что в HashMap (маска, сдвиг при удалении), но ячейки лежат в VersionedArray,
+//поэтому snapshot() стоит O(1), а запись после снимка копирует только O(log n) узлов.
+//писать может один поток, читать снимки - сколько угодно потоков
+public class VersionedHashMap<K, V> {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    //ячейка неизменяемая, обновление значения кладёт новую
+    private static final class Entry<K, V> {
+        final K key;
+        final V value;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private VersionedArray<Entry<K, V>> data;
+    private int mask;
+    private int size;
+
+    public VersionedHashMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        data = new VersionedArray<>();
+        for (int i = 0; i < capacity; i++) data.append(null);
+        mask = capacity - 1;
+    }
+
+    private static int probeIndex(Object key, int mask) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    //старые снимки продолжают смотреть на прежний массив
+    private void resize(int newCapacity) {
+        VersionedArray<Entry<K, V>> old = data;
+        allocate(newCapacity);
+        for (int i = 0; i < old.size(); i++) {
+            Entry<K, V> entry = old.get(i);
+            if (entry != null) {
+                int index = probeIndex(entry.key, mask);
+                while (data.get(index) != null) index = (index + 1) & mask;
+                data.set(index, entry);
+            }
+        }
+    }
+
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new CollectionError("Ключ не может быть пустым");
+        }
+        if (size + 1 > (int) ((mask + 1) * MAX_LOAD_FACTOR)) {
+            resize((mask + 1) * 2);
+        }
+        int index = probeIndex(key, mask);
+        while (true) {
+            Entry<K, V> entry = data.get(index);
+            if (entry == null) {
+                data.set(index, new Entry<>(key, value));
+                size++;
+                return;
+            }
+            if (entry.key.equals(key)) {
+                data.set(index, new Entry<>(key, value));
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static <K, V> int findIndex(VersionedArray.View<Entry<K, V>> view, VersionedArray<Entry<K, V>> live,
+                                        int mask, Object key) {
+        if (key == null) return -1;
+        int index = probeIndex(key, mask);
+        while (true) {
+            Entry<K, V> entry = view != null ? view.get(index) : live.get(index);
+            if (entry == null) return -1;
+            if (entry.key.equals(key)) return index;
+            index = (index + 1) & mask;
+        }
+    }
+
+    public V tryGet(K key) {
+        int idx = findIndex(null, data, mask, key);
+        return idx == -1 ? null : data.get(idx).value;
+    }
+
+    public boolean containsKey(K key) {
+        return findIndex(null, data, mask, key) != -1;
+    }
+
+    //удаление со сдвигом назад, как в HashMap
+    public boolean remove(K key) {
+        int hole = findIndex(null, data, mask, key);
+        if (hole == -1) {
+            return false;
+        }
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            Entry<K, V> entry = data.get(j);
+            if (entry == null) {
+                break;
+            }
+            int home = probeIndex(entry.key, mask);
+            boolean stays = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!stays) {
+                data.set(hole, entry);
+                hole = j;
+            }
+        }
+        data.set(hole, null);
+        size--;
+        return true;
+    }
+
+    public View<K, V> snapshot() {
+        return new View<>(data.snapshot(), mask, size);
+    }
+
+    public static final class View<K, V> {
+        private final VersionedArray.View<Entry<K, V>> data;
+        private final int mask;
+        private final int size;
+
+        private View(VersionedArray.View<Entry<K, V>> data, int mask, int size) {
+            this.data = data;
+            this.mask = mask;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public V tryGet(K key) {
+            int idx = findIndex(data, null, mask, key);
+            return idx == -1 ? null : data.get(idx).value;
+        }
+
+        public boolean containsKey(K key) {
+            return findIndex(data, null, mask, key) != -1;
+        }
+    }
+}